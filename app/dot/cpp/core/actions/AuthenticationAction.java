@@ -7,29 +7,26 @@ import static dot.cpp.core.helpers.ValidationHelper.isEmpty;
 import static dot.cpp.core.services.LoginService.ACCESS_TIME;
 import static dot.cpp.core.services.LoginService.REFRESH_TIME;
 
-import com.typesafe.config.Config;
 import dot.cpp.core.annotations.Authentication;
 import dot.cpp.core.constants.Constants;
 import dot.cpp.core.enums.ErrorCodes;
-import dot.cpp.core.enums.UserRole;
 import dot.cpp.core.exceptions.LoginException;
 import dot.cpp.core.helpers.CookieHelper;
+import dot.cpp.core.metrics.AuthMetrics;
 import dot.cpp.core.models.AuthTokens;
+import dot.cpp.core.models.VerifiedToken;
 import dot.cpp.core.services.LoginService;
 import dot.cpp.repository.services.RepositoryService;
-import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.stream.Collectors;
 import javax.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import play.i18n.Messages;
 import play.i18n.MessagesApi;
 import play.mvc.Action;
 import play.mvc.Http.Request;
 import play.mvc.Result;
+import play.mvc.Results;
 
 public class AuthenticationAction extends Action<Authentication> {
 
@@ -37,18 +34,21 @@ public class AuthenticationAction extends Action<Authentication> {
   private final MessagesApi languageService;
   private final LoginService loginService;
   private final RepositoryService repositoryService;
-  private final Config config;
+  private final AuthorizationPlanCache planCache;
+  private final AuthMetrics metrics;
 
   @Inject
   public AuthenticationAction(
       MessagesApi languageService,
       LoginService loginService,
       RepositoryService repositoryService,
-      Config config) {
+      AuthorizationPlanCache planCache,
+      AuthMetrics metrics) {
     this.languageService = languageService;
     this.loginService = loginService;
     this.repositoryService = repositoryService;
-    this.config = config;
+    this.planCache = planCache;
+    this.metrics = metrics;
   }
 
   public void setConfiguration(Authentication authenticationConfig) {
@@ -61,15 +61,20 @@ public class AuthenticationAction extends Action<Authentication> {
       return delegate.call(request);
     }
 
-    final var messages = languageService.preferred(request);
+    final var plan = planCache.get(configuration);
     final var accessToken = CookieHelper.getCookieString(request, ACCESS_TOKEN);
     final var refreshToken = CookieHelper.getCookieString(request, REFRESH_TOKEN);
 
     try {
-      final var userId = loginService.authorizeRequest(accessToken, getConfigUserRoles());
-      return delegate.call(request.addAttr(Constants.USER_ID, userId));
+      final var verifiedToken = loginService.authorize(accessToken, plan.getUserRoles());
+      final var authorizedRequest = withPrincipal(request, verifiedToken);
+      metrics.requestAuthorized();
+      return delegate.call(authorizedRequest);
     } catch (LoginException loginException) {
       logger.debug("Authorize request exception {}", loginException.getMessage());
+      if (isServerError(loginException)) {
+        return getServerErrorResult(request);
+      }
 
       try {
         if (isEmpty(refreshToken)) {
@@ -78,26 +83,35 @@ public class AuthenticationAction extends Action<Authentication> {
 
         final var clientIp = loginService.getClientIp(request);
         final var tokens = loginService.refreshTokens(refreshToken, clientIp);
-        final var userId = loginService.authorizeRequest(tokens.accessToken, getConfigUserRoles());
-        logger.debug("Successfully refreshed tokens for user {}", userId);
+        final var verifiedToken = loginService.authorize(tokens.accessToken, plan.getUserRoles());
+        final var authorizedRequest = withPrincipal(request, verifiedToken);
+        logger.debug("Successfully refreshed tokens for user {}", verifiedToken.userId);
+        metrics.requestRefreshed();
 
-        return getSuccessfulResult(request, userId, tokens);
+        return getSuccessfulResult(authorizedRequest, plan, tokens);
       } catch (LoginException refreshException) {
         logger.debug("Refresh exception {}", refreshException.getMessage());
-        return getLogoutRedirect(messages);
+        if (isServerError(refreshException)) {
+          return getServerErrorResult(request);
+        }
+        metrics.requestRejected();
+        return getLogoutRedirect(request, plan);
       }
     }
   }
 
-  private List<UserRole> getConfigUserRoles() {
-    return Arrays.stream(configuration.userRoles()).toList();
+  private Request withPrincipal(Request request, VerifiedToken verifiedToken)
+      throws LoginException {
+    return request
+        .addAttr(Constants.USER_ID, verifiedToken.userId)
+        .addAttr(Constants.PRINCIPAL, loginService.getPrincipal(verifiedToken));
   }
 
   private CompletionStage<Result> getSuccessfulResult(
-      Request request, String userId, AuthTokens authTokens) {
-    final var isSecure = config.getBoolean("play.http.session.secure");
+      Request request, AuthorizationPlan plan, AuthTokens authTokens) {
+    final var isSecure = plan.hasSecureCookies();
     return delegate
-        .call(request.addAttr(Constants.USER_ID, userId))
+        .call(request)
         .thenApply(
             result ->
                 result.withCookies(
@@ -105,14 +119,28 @@ public class AuthenticationAction extends Action<Authentication> {
                     getCookie(REFRESH_TOKEN, authTokens.refreshToken, isSecure, REFRESH_TIME)));
   }
 
-  private CompletableFuture<Result> getLogoutRedirect(Messages messages) {
-    final var status = configuration.status();
-    if (status != -1) {
-      return CompletableFuture.completedFuture(status(status));
+  /** Whether the request failed on the server side, e.g. the user could not be loaded. */
+  private static boolean isServerError(LoginException e) {
+    return ErrorCodes.GENERAL_ERROR.getCode().getCode().equals(e.getErrorCode().getCode());
+  }
+
+  /** Fails the request without touching the session, which is still valid. */
+  private CompletableFuture<Result> getServerErrorResult(Request request) {
+    metrics.requestRejected();
+    final var messages = languageService.preferred(request);
+    return CompletableFuture.completedFuture(
+        Results.internalServerError(
+            messages.apply(ErrorCodes.GENERAL_ERROR.getCode().getMessage())));
+  }
+
+  private CompletableFuture<Result> getLogoutRedirect(Request request, AuthorizationPlan plan) {
+    if (!plan.redirectsOnFailure()) {
+      return CompletableFuture.completedFuture(plan.getFailureResult());
     }
 
+    final var messages = languageService.preferred(request);
     return CompletableFuture.completedFuture(
-        CookieHelper.discardAuthorizationCookies(redirect(configuration.redirectUrl()))
+        plan.getFailureResult()
             .flashing("alert-danger", messages.apply("general.session.expired")));
   }
 }
@@ -0,0 +1,53 @@
+package dot.cpp.core.actions;
+
+import dot.cpp.core.annotations.Authentication;
+import dot.cpp.core.enums.UserRole;
+import dot.cpp.core.helpers.CookieHelper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import play.mvc.Result;
+import play.mvc.Results;
+
+/** Everything {@link AuthenticationAction} needs for one {@link Authentication} configuration. */
+public final class AuthorizationPlan {
+
+  private final Set<UserRole> userRoles;
+  private final boolean secureCookies;
+  private final Result failureResult;
+  private final boolean redirectOnFailure;
+
+  AuthorizationPlan(Authentication configuration, boolean secureCookies) {
+    final var roles = EnumSet.noneOf(UserRole.class);
+    roles.addAll(Arrays.asList(configuration.userRoles()));
+
+    this.userRoles = Collections.unmodifiableSet(roles);
+    this.secureCookies = secureCookies;
+    this.redirectOnFailure = configuration.status() == -1;
+    this.failureResult =
+        redirectOnFailure
+            ? CookieHelper.discardAuthorizationCookies(
+                Results.redirect(configuration.redirectUrl()))
+            : Results.status(configuration.status());
+  }
+
+  /** The permitted roles; empty if every role is permitted. */
+  public Set<UserRole> getUserRoles() {
+    return userRoles;
+  }
+
+  public boolean hasSecureCookies() {
+    return secureCookies;
+  }
+
+  /** The prebuilt result for a request that failed authorization. */
+  public Result getFailureResult() {
+    return failureResult;
+  }
+
+  /** Whether the failure result is a redirect, which is flashed with the session expired alert. */
+  public boolean redirectsOnFailure() {
+    return redirectOnFailure;
+  }
+}
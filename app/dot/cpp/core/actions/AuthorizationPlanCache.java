@@ -0,0 +1,29 @@
+package dot.cpp.core.actions;
+
+import com.typesafe.config.Config;
+import dot.cpp.core.annotations.Authentication;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Compiles an {@link AuthorizationPlan} once per distinct {@link Authentication} annotation, so
+ * that the per-request action does no role or configuration lookups.
+ */
+@Singleton
+public class AuthorizationPlanCache {
+
+  private final Map<Authentication, AuthorizationPlan> plans = new ConcurrentHashMap<>();
+  private final boolean secureCookies;
+
+  @Inject
+  public AuthorizationPlanCache(Config config) {
+    this.secureCookies = config.getBoolean("play.http.session.secure");
+  }
+
+  public AuthorizationPlan get(Authentication configuration) {
+    return plans.computeIfAbsent(
+        configuration, authentication -> new AuthorizationPlan(authentication, secureCookies));
+  }
+}
@@ -0,0 +1,24 @@
+package dot.cpp.core.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** Declares an index of an entity collection, created at startup by the IndexBootstrapper. */
+@Repeatable(EntityIndexes.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EntityIndex {
+
+  /** Indexed fields, in order; a field prefixed with "-" is indexed descending. */
+  String[] fields();
+
+  boolean unique() default false;
+
+  boolean sparse() default false;
+
+  /** Makes this a TTL index on a date field; -1 means no expiry. */
+  long expireAfterSeconds() default -1L;
+}
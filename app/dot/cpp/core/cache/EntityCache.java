@@ -0,0 +1,241 @@
+package dot.cpp.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.typesafe.config.Config;
+import dot.cpp.core.enums.EvictionPolicy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of entities used by {@link dot.cpp.core.services.EntityService}. The
+ * eviction policy is either LRU, on an access ordered {@link LinkedHashMap}, or W-TinyLFU, on
+ * Caffeine. Configured from a block with {@code max.size}, {@code ttl} and {@code policy}.
+ *
+ * <p>Every invalidation advances a generation. Values loaded while the generation moved on may be
+ * older than the write that caused the invalidation, so they are not kept.
+ *
+ * @param <T> the cached value type
+ */
+public class EntityCache<T> {
+
+  private final Store<T> store;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final AtomicLong generation = new AtomicLong();
+
+  public EntityCache(Config config) {
+    final var maxSize = config.getLong("max.size");
+    final var ttlMillis = config.getDuration("ttl").toMillis();
+
+    this.store =
+        EvictionPolicy.from(config.getString("policy")) == EvictionPolicy.LRU
+            ? new LruStore<>((int) maxSize, ttlMillis)
+            : new TinyLfuStore<>(maxSize, ttlMillis);
+  }
+
+  /**
+   * Returns the cached value for the key, or null.
+   *
+   * @param key the key
+   * @return the value or null
+   */
+  public T get(String key) {
+    final var value = store.get(key);
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Returns the cached value for the key, loading it on a miss. The loaded value is cached unless
+   * the cache was invalidated during the load.
+   *
+   * @param key the key
+   * @param loader loads the value, may return null
+   * @return the value or null
+   */
+  public T get(String key, Function<String, T> loader) {
+    final var value = get(key);
+    if (value != null) {
+      return value;
+    }
+
+    final var loadGeneration = getGeneration();
+    final var loadedValue = loader.apply(key);
+    put(key, loadedValue, loadGeneration);
+    return loadedValue;
+  }
+
+  /**
+   * Returns the current generation, to be read before loading values passed to {@link #put}.
+   *
+   * @return the generation
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Caches a value loaded when the cache was at the given generation, unless it was invalidated
+   * since.
+   *
+   * @param key the key
+   * @param value the value
+   * @param loadGeneration the generation read before the value was loaded
+   */
+  public void put(String key, T value, long loadGeneration) {
+    if (key == null || value == null || generation.get() != loadGeneration) {
+      return;
+    }
+
+    store.put(key, value);
+    // an invalidation between the check and the put must still win
+    if (generation.get() != loadGeneration) {
+      store.invalidate(key);
+    }
+  }
+
+  public void invalidate(String key) {
+    if (key != null) {
+      generation.incrementAndGet();
+      store.invalidate(key);
+    }
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    store.invalidateAll();
+  }
+
+  public long size() {
+    return store.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  private interface Store<T> {
+
+    T get(String key);
+
+    void put(String key, T value);
+
+    void invalidate(String key);
+
+    void invalidateAll();
+
+    long size();
+  }
+
+  private static final class TinyLfuStore<T> implements Store<T> {
+
+    private final Cache<String, T> cache;
+
+    private TinyLfuStore(long maxSize, long ttlMillis) {
+      this.cache =
+          Caffeine.newBuilder()
+              .maximumSize(maxSize)
+              .expireAfterWrite(Duration.ofMillis(ttlMillis))
+              .build();
+    }
+
+    @Override
+    public T get(String key) {
+      return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(String key, T value) {
+      cache.put(key, value);
+    }
+
+    @Override
+    public void invalidate(String key) {
+      cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+      cache.invalidateAll();
+    }
+
+    @Override
+    public long size() {
+      return cache.estimatedSize();
+    }
+  }
+
+  private static final class LruStore<T> implements Store<T> {
+
+    private final long ttlMillis;
+    private final Map<String, TimedValue<T>> map;
+
+    private LruStore(int maxSize, long ttlMillis) {
+      this.ttlMillis = ttlMillis;
+      this.map =
+          new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TimedValue<T>> eldest) {
+              return size() > maxSize;
+            }
+          };
+    }
+
+    @Override
+    public synchronized T get(String key) {
+      final var timedValue = map.get(key);
+      if (timedValue == null) {
+        return null;
+      }
+      if (timedValue.expiresAt <= System.currentTimeMillis()) {
+        map.remove(key);
+        return null;
+      }
+      return timedValue.value;
+    }
+
+    @Override
+    public synchronized void put(String key, T value) {
+      map.put(key, new TimedValue<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public synchronized void invalidate(String key) {
+      map.remove(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+      map.clear();
+    }
+
+    @Override
+    public synchronized long size() {
+      return map.size();
+    }
+  }
+
+  private static final class TimedValue<T> {
+
+    private final T value;
+    private final long expiresAt;
+
+    private TimedValue(T value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
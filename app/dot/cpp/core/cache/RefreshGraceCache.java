@@ -0,0 +1,60 @@
+package dot.cpp.core.cache;
+
+import static dot.cpp.core.services.LoginService.REFRESH_GRACE_TIME;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.typesafe.config.Config;
+import dot.cpp.core.models.AuthTokens;
+import dot.cpp.core.models.RotatedTokens;
+import java.time.Duration;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Tokens issued for recently rotated refresh tokens, keyed by the old refresh token and kept for
+ * the refresh grace time. Requests that lost a refresh race, e.g. parallel requests of a page
+ * load, are answered from here without querying the sessions or the user.
+ */
+@Singleton
+public class RefreshGraceCache {
+
+  private final Cache<String, RotatedTokens> cache;
+
+  @Inject
+  public RefreshGraceCache(Config config) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(config.getLong("auth.refresh.grace.cache.max.size"))
+            .expireAfterWrite(Duration.ofMillis(REFRESH_GRACE_TIME))
+            .build();
+  }
+
+  /**
+   * Returns the tokens issued when the refresh token was rotated, or null.
+   *
+   * @param oldRefreshToken the rotated refresh token
+   * @return the {@link RotatedTokens} or null
+   */
+  public RotatedTokens get(String oldRefreshToken) {
+    return cache.getIfPresent(oldRefreshToken);
+  }
+
+  public void put(String oldRefreshToken, String userId, String clientIp, AuthTokens authTokens) {
+    cache.put(oldRefreshToken, new RotatedTokens(userId, clientIp, authTokens));
+  }
+
+  /**
+   * Drops the rotations of a user, so that closed sessions cannot be resumed within the grace
+   * time.
+   *
+   * @param userId the user ID
+   */
+  public void invalidateUser(String userId) {
+    cache.asMap().values().removeIf(rotatedTokens -> rotatedTokens.userId.equals(userId));
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+}
@@ -0,0 +1,47 @@
+package dot.cpp.core.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.typesafe.config.Config;
+import dot.cpp.core.models.UserSnapshot;
+import dot.cpp.core.models.user.repository.UserRepository;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Small expiring cache of user snapshots used to build the request principal. UserService
+ * invalidates a user whenever it writes it.
+ */
+@Singleton
+public class UserSnapshotCache {
+
+  private final LoadingCache<String, UserSnapshot> cache;
+
+  @Inject
+  public UserSnapshotCache(UserRepository userRepository, Config config) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(config.getLong("auth.user.snapshot.max.size"))
+            .expireAfterWrite(config.getDuration("auth.user.snapshot.ttl"))
+            .recordStats()
+            .build(userId -> UserSnapshot.from(userRepository.findById(userId)));
+  }
+
+  public UserSnapshot get(String userId) {
+    return cache.get(userId);
+  }
+
+  public void invalidate(String userId) {
+    if (userId != null) {
+      cache.invalidate(userId);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public double hitRate() {
+    return cache.stats().hitRate();
+  }
+}
@@ -0,0 +1,107 @@
+package dot.cpp.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.typesafe.config.Config;
+import dot.cpp.core.models.VerifiedToken;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Bounded cache of access tokens whose signature was already verified. Entries are keyed by the
+ * SHA-256 digest of the token, so the raw token is never kept in memory, and expire together with
+ * the token.
+ */
+@Singleton
+public class VerifiedTokenCache {
+
+  // digest key (64 hex chars), user id, entry and map node overhead
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+  private final boolean enabled;
+  private final Cache<String, VerifiedToken> cache;
+
+  @Inject
+  public VerifiedTokenCache(Config config) {
+    this.enabled = config.getBoolean("auth.token.cache.enabled");
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(config.getBytes("auth.token.cache.max.memory"))
+            .weigher(
+                (String digest, VerifiedToken token) ->
+                    ENTRY_OVERHEAD_BYTES + 2 * token.userId.length())
+            .expireAfter(new TokenExpiry())
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Returns the verified token for the given access token, or null if it is not cached.
+   *
+   * @param accessToken the raw JWT access token
+   * @return the cached {@link VerifiedToken} or null
+   */
+  public VerifiedToken get(String accessToken) {
+    return enabled ? cache.getIfPresent(digest(accessToken)) : null;
+  }
+
+  public void put(String accessToken, VerifiedToken verifiedToken) {
+    if (enabled && !verifiedToken.isExpired(System.currentTimeMillis())) {
+      cache.put(digest(accessToken), verifiedToken);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  public double hitRate() {
+    return cache.stats().hitRate();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static String digest(String accessToken) {
+    try {
+      final var messageDigest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of()
+          .formatHex(messageDigest.digest(accessToken.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+    @Override
+    public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+      final var remainingMillis = token.expiresAt - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, remainingMillis));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String digest, VerifiedToken token, long currentTime, long currentDuration) {
+      return expireAfterCreate(digest, token, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String digest, VerifiedToken token, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
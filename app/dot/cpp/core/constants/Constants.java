@@ -1,5 +1,6 @@
 package dot.cpp.core.constants;
 
+import dot.cpp.core.models.Principal;
 import play.libs.typedmap.TypedKey;
 
 public final class Constants {
@@ -8,6 +9,7 @@ public final class Constants {
   public static final String REFRESH_TOKEN = "refresh_token";
   public static final String USER_ROLE = "user_role";
   public static final TypedKey<String> USER_ID = TypedKey.create("USER_ID");
+  public static final TypedKey<Principal> PRINCIPAL = TypedKey.create("PRINCIPAL");
 
   private Constants() {}
 }
@@ -0,0 +1,18 @@
+package dot.cpp.core.controllers;
+
+import dot.cpp.core.metrics.MetricsRegistry;
+import javax.inject.Inject;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+/** Serves the core component metrics in the Prometheus text exposition format. */
+public class MetricsController extends Controller {
+
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  @Inject protected MetricsRegistry metricsRegistry;
+
+  public Result metrics() {
+    return ok(metricsRegistry.scrape()).as(CONTENT_TYPE);
+  }
+}
@@ -0,0 +1,15 @@
+package dot.cpp.core.enums;
+
+public enum CountMode {
+  /** Counts every matching entity, which reads every match of the filter. */
+  EXACT,
+  /**
+   * Reads the document count from the collection metadata when there is no filter, and stops
+   * scanning after {@code list.count.cap} matches otherwise.
+   */
+  ESTIMATED;
+
+  public static CountMode from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
@@ -18,7 +18,12 @@ public enum ErrorCodes {
   GENERAL_ERROR(ErrorCode.from(1012, "general.application.error")),
   MISSING_REFRESH_TOKEN(ErrorCode.from(1013, "missing.refresh.token")),
   IP_NOT_FOUND(ErrorCode.from(1014, "ip.not.found")),
-  IP_INVALID(ErrorCode.from(1015, "ip.invalid"));
+  IP_INVALID(ErrorCode.from(1015, "ip.invalid")),
+  SERVER_BUSY(ErrorCode.from(1016, "server.busy")),
+  TOKEN_REVOKED(ErrorCode.from(1017, "token.revoked")),
+  TOO_MANY_LOGIN_ATTEMPTS(ErrorCode.from(1018, "too.many.login.attempts")),
+  INVALID_PAGE_TOKEN(ErrorCode.from(1019, "invalid.page.token")),
+  PARTIAL_ENTITY(ErrorCode.from(1020, "entity.partial"));
 
   final ErrorCode code;
 
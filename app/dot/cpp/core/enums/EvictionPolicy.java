@@ -0,0 +1,12 @@
+package dot.cpp.core.enums;
+
+public enum EvictionPolicy {
+  /** Evicts the least recently used entry. */
+  LRU,
+  /** Window TinyLFU: admits and keeps entries by recency and frequency, as Caffeine does. */
+  TINY_LFU;
+
+  public static EvictionPolicy from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
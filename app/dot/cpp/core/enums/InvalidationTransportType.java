@@ -0,0 +1,18 @@
+package dot.cpp.core.enums;
+
+public enum InvalidationTransportType {
+  /** Caches are not invalidated across nodes. */
+  NONE,
+  /** Every bus of the same JVM, for tests. */
+  LOOPBACK,
+  /** UDP multicast on the local network. */
+  MULTICAST,
+  /** TCP connections to a configured list of peers. */
+  TCP,
+  /** A polled collection of the shared database. */
+  MONGO;
+
+  public static InvalidationTransportType from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
@@ -0,0 +1,12 @@
+package dot.cpp.core.enums;
+
+public enum SessionDurability {
+  /** Every session change is written to the database before the call returns. */
+  SYNC,
+  /** Refresh rotations are applied in memory and written to the database in batches. */
+  WRITE_BEHIND;
+
+  public static SessionDurability from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
@@ -11,6 +11,18 @@ public class BaseException extends Exception {
     this.errorCode = errorCode;
   }
 
+  /**
+   * Creates an exception without suppressed exceptions and, unless {@code writableStackTrace} is
+   * set, without a stack trace. Such exceptions are cheap enough for expected control flow.
+   *
+   * @param errorCode the error code
+   * @param writableStackTrace whether the stack trace is filled in
+   */
+  protected BaseException(ErrorCode errorCode, boolean writableStackTrace) {
+    super(errorCode.getMessage(), null, false, writableStackTrace);
+    this.errorCode = errorCode;
+  }
+
   public static BaseException from(ErrorCodes errorCode) {
     return new BaseException(errorCode.getCode());
   }
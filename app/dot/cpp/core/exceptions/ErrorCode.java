@@ -26,6 +26,13 @@ public class ErrorCode {
     return code;
   }
 
+  /**
+   * Sets the code of this error code.
+   *
+   * @deprecated error codes are shared by every exception of the same kind, so a change shows up
+   *     in all of them; use {@link #withDetails} or {@link #from} to get another error code
+   */
+  @Deprecated
   public void setCode(Integer code) {
     this.code = code;
   }
@@ -34,6 +41,13 @@ public class ErrorCode {
     return message;
   }
 
+  /**
+   * Sets the message of this error code.
+   *
+   * @deprecated error codes are shared by every exception of the same kind, so a change shows up
+   *     in all of them; use {@link #withDetails} or {@link #from} to get another error code
+   */
+  @Deprecated
   public void setMessage(String message) {
     this.message = message;
   }
@@ -42,10 +56,28 @@ public class ErrorCode {
     return details;
   }
 
+  /**
+   * Sets the details of this error code.
+   *
+   * @deprecated error codes are shared by every exception of the same kind, so a change shows up
+   *     in all of them; use {@link #withDetails} or {@link #from} to get another error code
+   */
+  @Deprecated
   public void setDetails(Object details) {
     this.details = details;
   }
 
+  /**
+   * Returns a copy of this error code carrying the details of one occurrence. Error codes are
+   * shared by every exception of the same kind, so they should not be modified.
+   *
+   * @param details the details of the occurrence
+   * @return a new {@link ErrorCode} with the same code and message
+   */
+  public ErrorCode withDetails(Object details) {
+    return new ErrorCode(code, message, details);
+  }
+
   @Override
   public String toString() {
     return Json.stringify(Json.toJson(this));
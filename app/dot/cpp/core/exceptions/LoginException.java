@@ -1,14 +1,43 @@
 package dot.cpp.core.exceptions;
 
 import dot.cpp.core.enums.ErrorCodes;
+import java.util.EnumMap;
+import java.util.Map;
 
+/**
+ * Authentication failure. Expired or missing tokens are part of the normal request flow, so {@link
+ * #from} returns one shared instance per error code, without stack trace. Shared instances cannot
+ * be changed: they ignore causes, suppressed exceptions and stack traces set on them.
+ */
 public class LoginException extends BaseException {
 
+  private static final Map<ErrorCodes, LoginException> INSTANCES = new EnumMap<>(ErrorCodes.class);
+
+  static {
+    for (var errorCode : ErrorCodes.values()) {
+      INSTANCES.put(errorCode, new LoginException(errorCode.getCode(), true));
+    }
+  }
+
+  private final boolean shared;
+
   public LoginException(ErrorCode errorCode) {
     super(errorCode);
+    this.shared = false;
+  }
+
+  private LoginException(ErrorCode errorCode, boolean shared) {
+    super(errorCode, false);
+    this.shared = shared;
   }
 
   public static LoginException from(ErrorCodes errorCode) {
-    return new LoginException(errorCode.getCode());
+    return INSTANCES.get(errorCode);
+  }
+
+  @Override
+  public synchronized Throwable initCause(Throwable cause) {
+    // the cause of one failure must not show up on every other thread throwing the same instance
+    return shared ? this : super.initCause(cause);
   }
 }
@@ -0,0 +1,107 @@
+package dot.cpp.core.helpers;
+
+import com.password4j.Argon2Function;
+import com.password4j.Password;
+import com.password4j.types.Argon2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class Argon2Helper {
+
+  public static final int OUTPUT_LENGTH = 32;
+  public static final int VERSION = 19;
+
+  private static final Logger logger = LoggerFactory.getLogger(Argon2Helper.class);
+  private static final int SAMPLES = 3;
+  private static final int MAX_ITERATIONS = 64;
+  private static final String SAMPLE_PASSWORD = "Calibration-sample-1!";
+
+  private Argon2Helper() {}
+
+  public static Argon2Function getInstance(int memory, int iterations, int parallelism) {
+    return Argon2Function.getInstance(
+        memory, iterations, parallelism, OUTPUT_LENGTH, Argon2.ID, VERSION);
+  }
+
+  /**
+   * Picks the Argon2id memory and iteration counts that hash in about the target time on the
+   * current hardware. Memory is doubled first, up to the maximum, while the hash takes less than
+   * half of the target; iterations are then raised while it stays below the target.
+   *
+   * @param memory the minimum memory in KiB
+   * @param iterations the minimum number of iterations
+   * @param parallelism the number of lanes
+   * @param maxMemory the maximum memory in KiB
+   * @param targetMillis the target hash time in milliseconds
+   * @return the calibrated {@link Argon2Function}
+   */
+  public static Argon2Function calibrate(
+      int memory, int iterations, int parallelism, int maxMemory, long targetMillis) {
+    var calibratedMemory = memory;
+    var calibratedIterations = iterations;
+    var millis = measureMillis(getInstance(calibratedMemory, calibratedIterations, parallelism));
+
+    while (millis * 2 < targetMillis && calibratedMemory * 2 <= maxMemory) {
+      calibratedMemory *= 2;
+      millis = measureMillis(getInstance(calibratedMemory, calibratedIterations, parallelism));
+    }
+
+    while (millis < targetMillis && calibratedIterations < MAX_ITERATIONS) {
+      final var nextIterations = calibratedIterations + 1;
+      final var nextMillis =
+          measureMillis(getInstance(calibratedMemory, nextIterations, parallelism));
+      if (nextMillis > targetMillis) {
+        break;
+      }
+      calibratedIterations = nextIterations;
+      millis = nextMillis;
+    }
+
+    logger.info(
+        "Calibrated Argon2id to memory {} KiB, iterations {}, parallelism {} ({} ms, target {} ms)",
+        calibratedMemory,
+        calibratedIterations,
+        parallelism,
+        millis,
+        targetMillis);
+
+    return getInstance(calibratedMemory, calibratedIterations, parallelism);
+  }
+
+  /**
+   * Returns whether a stored hash is weaker than one made with the current parameters: another
+   * variant, version or output length, or a lower cost, taken as memory times iterations.
+   * Calibrated parameters differ between nodes, so a hash is not replaced just because its
+   * parameters differ; a node only upgrades hashes that are cheaper than its own, and the hashes
+   * settle on the strongest parameters in use instead of being rewritten back and forth.
+   *
+   * @param hash the stored hash
+   * @param current the current {@link Argon2Function}
+   * @return true if the hash should be recomputed with the current parameters
+   */
+  public static boolean needsRehash(String hash, Argon2Function current) {
+    final var stored = Argon2Function.getInstanceFromHash(hash);
+    if (stored.getVariant() != current.getVariant()
+        || stored.getVersion() != current.getVersion()
+        || stored.getOutputLength() != current.getOutputLength()) {
+      return true;
+    }
+
+    return getCost(stored) < getCost(current);
+  }
+
+  private static long getCost(Argon2Function argon2) {
+    return (long) argon2.getMemory() * argon2.getIterations();
+  }
+
+  private static long measureMillis(Argon2Function argon2) {
+    // the first run warms up the JIT and the memory pool
+    Password.hash(SAMPLE_PASSWORD).addRandomSalt(16).with(argon2);
+
+    final var start = System.nanoTime();
+    for (int i = 0; i < SAMPLES; i++) {
+      Password.hash(SAMPLE_PASSWORD).addRandomSalt(16).with(argon2);
+    }
+    return (System.nanoTime() - start) / SAMPLES / 1_000_000L;
+  }
+}
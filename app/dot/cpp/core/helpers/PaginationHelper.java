@@ -1,5 +1,15 @@
 package dot.cpp.core.helpers;
 
+import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
+
+import dev.morphia.query.Sort;
+import dev.morphia.query.filters.Filter;
+import dev.morphia.query.filters.Filters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public final class PaginationHelper {
 
   public static int getSkip(int page, int pageSize) {
@@ -9,4 +19,81 @@ public final class PaginationHelper {
   public static int getPagesNumber(int entriesNo, int pageSize) {
     return entriesNo % pageSize == 0 ? entriesNo / pageSize : entriesNo / pageSize + 1;
   }
+
+  public static int getPagesNumber(long entriesNo, int pageSize) {
+    final var pages = entriesNo % pageSize == 0 ? entriesNo / pageSize : entriesNo / pageSize + 1;
+    return (int) Math.min(pages, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the sort completed with the record id, so that the sort key is unique and keyset
+   * pages neither skip nor repeat entities with equal sort values.
+   *
+   * @param sortBy the requested sort
+   * @return the sort ending with the record id
+   */
+  public static Sort[] getKeysetSort(Sort... sortBy) {
+    if (Arrays.stream(sortBy).anyMatch(sort -> RECORD_ID.equals(sort.getField()))) {
+      return sortBy;
+    }
+
+    final var keysetSort = Arrays.copyOf(sortBy, sortBy.length + 1);
+    keysetSort[sortBy.length] = Sort.ascending(RECORD_ID);
+    return keysetSort;
+  }
+
+  public static Sort[] reverseSort(Sort... sortBy) {
+    return Arrays.stream(sortBy)
+        .map(
+            sort ->
+                sort.getOrder() > 0
+                    ? Sort.descending(sort.getField())
+                    : Sort.ascending(sort.getField()))
+        .toArray(Sort[]::new);
+  }
+
+  /** Returns a signature of the sort, used to tie page tokens to the sort they were made for. */
+  public static String getSortSignature(Sort... sortBy) {
+    return Arrays.stream(sortBy)
+        .map(sort -> sort.getField() + ':' + sort.getOrder())
+        .collect(Collectors.joining(","));
+  }
+
+  /**
+   * Returns the filter of the entities that come after the given sort key values in the sort
+   * order. Sort fields are compared lexicographically, with nulls ordered first as MongoDB does.
+   *
+   * @param sortBy the sort, as returned by {@link #getKeysetSort}
+   * @param values the sort key values of the last entity seen
+   * @return the seek filter
+   */
+  public static Filter getSeekFilter(Sort[] sortBy, List<Object> values) {
+    final var clauses = new ArrayList<Filter>();
+    for (var i = 0; i < sortBy.length; i++) {
+      final var afterFilter = getAfterFilter(sortBy[i], values.get(i));
+      if (afterFilter == null) {
+        continue;
+      }
+
+      final var clause = new ArrayList<Filter>();
+      for (var j = 0; j < i; j++) {
+        clause.add(Filters.eq(sortBy[j].getField(), values.get(j)));
+      }
+      clause.add(afterFilter);
+      clauses.add(clause.size() == 1 ? clause.get(0) : Filters.and(clause.toArray(Filter[]::new)));
+    }
+
+    return clauses.size() == 1 ? clauses.get(0) : Filters.or(clauses.toArray(Filter[]::new));
+  }
+
+  private static Filter getAfterFilter(Sort sort, Object value) {
+    final var field = sort.getField();
+    if (sort.getOrder() > 0) {
+      return value == null ? Filters.ne(field, null) : Filters.gt(field, value);
+    }
+    // nothing sorts after null in descending order, and nulls sort after any value
+    return value == null
+        ? null
+        : Filters.or(Filters.lt(field, value), Filters.eq(field, null));
+  }
 }
@@ -0,0 +1,116 @@
+package dot.cpp.core.invalidation;
+
+import com.typesafe.config.Config;
+import dot.cpp.core.enums.InvalidationTransportType;
+import dot.cpp.core.metrics.Counter;
+import dot.cpp.core.metrics.MetricsRegistry;
+import dot.cpp.core.models.invalidation.repository.CacheInvalidationRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Broadcasts entity writes to the other nodes so that they can drop the cached copies. Writers
+ * publish the collection and record id; listeners subscribe per collection and receive the record
+ * id, or null when any entity of the collection may have changed. Messages published by this node
+ * are not delivered back to it. The transport is chosen by {@code cache.invalidation.transport}.
+ */
+@Singleton
+public class InvalidationBus {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+  private final InvalidationTransport transport;
+  private final Counter published;
+  private final Counter received;
+
+  @Inject
+  public InvalidationBus(
+      Config config,
+      CacheInvalidationRepository invalidationRepository,
+      RepositoryService repositoryService,
+      MetricsRegistry metricsRegistry,
+      ApplicationLifecycle lifecycle) {
+    final var transportConfig = config.getConfig("cache.invalidation");
+    final var transportType =
+        InvalidationTransportType.from(transportConfig.getString("transport"));
+
+    this.transport =
+        switch (transportType) {
+          case NONE -> null;
+          case LOOPBACK -> new LoopbackTransport();
+          case MULTICAST -> new MulticastTransport(transportConfig.getConfig("multicast"));
+          case TCP -> new TcpPeerTransport(transportConfig.getConfig("tcp"));
+          case MONGO ->
+              new MongoPollingTransport(
+                  transportConfig.getConfig("mongo"), invalidationRepository, repositoryService);
+        };
+
+    this.published =
+        metricsRegistry.counter("cache_invalidations_published_total", "Invalidations sent");
+    this.received =
+        metricsRegistry.counter(
+            "cache_invalidations_received_total", "Invalidations received from other nodes");
+
+    if (transport != null) {
+      transport.start(this::dispatch);
+      logger.info("Cache invalidation over {} as node {}", transportType, nodeId);
+
+      lifecycle.addStopHook(
+          () -> {
+            transport.stop();
+            return CompletableFuture.completedFuture(null);
+          });
+    }
+  }
+
+  public boolean isEnabled() {
+    return transport != null;
+  }
+
+  /**
+   * Registers a listener for the writes of other nodes to a collection.
+   *
+   * @param collection the collection name
+   * @param listener receives the written record id, or null if any entity may have changed
+   */
+  public void subscribe(String collection, Consumer<String> listener) {
+    listeners.computeIfAbsent(collection, name -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  /**
+   * Tells the other nodes that an entity changed.
+   *
+   * @param collection the collection name
+   * @param recordId the record id, or null if any entity of the collection may have changed
+   */
+  public void publish(String collection, String recordId) {
+    if (transport != null) {
+      published.increment();
+      transport.publish(new InvalidationMessage(nodeId, collection, recordId));
+    }
+  }
+
+  private void dispatch(InvalidationMessage message) {
+    if (nodeId.equals(message.nodeId)) {
+      return;
+    }
+
+    received.increment();
+    final var collectionListeners = listeners.get(message.collection);
+    if (collectionListeners != null) {
+      collectionListeners.forEach(listener -> listener.accept(message.recordId));
+    }
+  }
+}
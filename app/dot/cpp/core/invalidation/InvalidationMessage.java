@@ -0,0 +1,48 @@
+package dot.cpp.core.invalidation;
+
+import java.util.Optional;
+
+/**
+ * Tells other nodes that an entity of a collection changed. A null record id means any entity of
+ * the collection may have changed.
+ */
+public class InvalidationMessage {
+
+  private static final char SEPARATOR = '\t';
+  private static final String ALL = "*";
+
+  public final String nodeId;
+  public final String collection;
+  public final String recordId;
+
+  public InvalidationMessage(String nodeId, String collection, String recordId) {
+    this.nodeId = nodeId;
+    this.collection = collection;
+    this.recordId = recordId;
+  }
+
+  /**
+   * Encodes the message as a single line for the socket transports.
+   *
+   * @return the encoded message, without line terminator
+   */
+  public String encode() {
+    return nodeId + SEPARATOR + collection + SEPARATOR + (recordId == null ? ALL : recordId);
+  }
+
+  /**
+   * Decodes a line written by {@link #encode()}.
+   *
+   * @param line the encoded message
+   * @return the message, or empty if the line is malformed
+   */
+  public static Optional<InvalidationMessage> decode(String line) {
+    final var parts = line.split(String.valueOf(SEPARATOR), -1);
+    if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var recordId = ALL.equals(parts[2]) ? null : parts[2];
+    return Optional.of(new InvalidationMessage(parts[0], parts[1], recordId));
+  }
+}
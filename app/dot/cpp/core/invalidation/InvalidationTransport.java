@@ -0,0 +1,23 @@
+package dot.cpp.core.invalidation;
+
+import java.util.function.Consumer;
+
+/** Carries invalidation messages between the nodes of a deployment. */
+public interface InvalidationTransport {
+
+  /**
+   * Starts delivering the messages of every node, possibly including this one, to the consumer.
+   *
+   * @param consumer the consumer, called from a transport thread
+   */
+  void start(Consumer<InvalidationMessage> consumer);
+
+  /**
+   * Sends a message to the other nodes. Delivery is best effort; failures are logged, not thrown.
+   *
+   * @param message the message
+   */
+  void publish(InvalidationMessage message);
+
+  void stop();
+}
@@ -0,0 +1,33 @@
+package dot.cpp.core.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers messages to every bus in the same JVM. Meant for tests that run several applications
+ * side by side to stand in for several nodes.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+  private static final List<Consumer<InvalidationMessage>> CONSUMERS =
+      new CopyOnWriteArrayList<>();
+
+  private Consumer<InvalidationMessage> consumer;
+
+  @Override
+  public void start(Consumer<InvalidationMessage> consumer) {
+    this.consumer = consumer;
+    CONSUMERS.add(consumer);
+  }
+
+  @Override
+  public void publish(InvalidationMessage message) {
+    CONSUMERS.forEach(registered -> registered.accept(message));
+  }
+
+  @Override
+  public void stop() {
+    CONSUMERS.remove(consumer);
+  }
+}
@@ -0,0 +1,126 @@
+package dot.cpp.core.invalidation;
+
+import com.typesafe.config.Config;
+import dev.morphia.query.filters.Filters;
+import dot.cpp.core.models.invalidation.entity.CacheInvalidation;
+import dot.cpp.core.models.invalidation.repository.CacheInvalidationRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes messages as documents of the CacheInvalidation collection and polls it for the
+ * messages of other nodes. Works wherever the nodes share the database, at the cost of one query
+ * per poll interval. Each poll reads back over an overlap window, so documents committed late or
+ * written by a node with a skewed clock are still seen; invalidating twice is harmless. Messages
+ * are inserted by a background thread, so writers do not wait for the insert.
+ */
+public class MongoPollingTransport implements InvalidationTransport {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final CacheInvalidationRepository invalidationRepository;
+  private final RepositoryService repositoryService;
+  private final long pollMillis;
+  private final long overlapMillis;
+  private final long retentionMillis;
+  private final ThreadPoolExecutor sender;
+  private ScheduledExecutorService poller;
+  private long lastPoll = System.currentTimeMillis();
+
+  public MongoPollingTransport(
+      Config config,
+      CacheInvalidationRepository invalidationRepository,
+      RepositoryService repositoryService) {
+    this.invalidationRepository = invalidationRepository;
+    this.repositoryService = repositoryService;
+    this.pollMillis = config.getDuration("poll.interval").toMillis();
+    this.overlapMillis = config.getDuration("overlap").toMillis();
+    this.retentionMillis = config.getDuration("retention").toMillis();
+
+    this.sender =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getInt("queue.size")),
+            runnable -> {
+              final var thread = new Thread(runnable, "cache-invalidation-mongo-sender");
+              thread.setDaemon(true);
+              return thread;
+            },
+            (runnable, executor) -> logger.warn("Invalidation queue full, message dropped"));
+  }
+
+  @Override
+  public void start(Consumer<InvalidationMessage> consumer) {
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final var thread = new Thread(runnable, "cache-invalidation-poller");
+              thread.setDaemon(true);
+              return thread;
+            });
+    poller.scheduleWithFixedDelay(
+        () -> poll(consumer), pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void publish(InvalidationMessage message) {
+    sender.execute(() -> insert(message));
+  }
+
+  private void insert(InvalidationMessage message) {
+    final var now = System.currentTimeMillis();
+    final var invalidation = new CacheInvalidation();
+    invalidation.setNodeId(message.nodeId);
+    invalidation.setCollection(message.collection);
+    invalidation.setEntityId(message.recordId);
+    invalidation.setCreatedAt(now);
+    invalidation.setExpireAt(new Date(now + retentionMillis));
+
+    try {
+      invalidationRepository.save(invalidation);
+    } catch (RuntimeException e) {
+      logger.warn("Could not publish invalidation {}", message.encode(), e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (poller != null) {
+      poller.shutdown();
+    }
+    // messages already queued are still inserted
+    sender.shutdown();
+  }
+
+  private void poll(Consumer<InvalidationMessage> consumer) {
+    try {
+      if (!repositoryService.isDatabaseInitialized()) {
+        return;
+      }
+
+      final var pollStart = System.currentTimeMillis();
+      invalidationRepository
+          .listWithFilter(Filters.gte(CacheInvalidation.CREATED_AT, lastPoll - overlapMillis))
+          .forEach(
+              invalidation ->
+                  consumer.accept(
+                      new InvalidationMessage(
+                          invalidation.getNodeId(),
+                          invalidation.getCollection(),
+                          invalidation.getEntityId())));
+      lastPoll = pollStart;
+    } catch (RuntimeException e) {
+      logger.error("Could not poll invalidations", e);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package dot.cpp.core.invalidation;
+
+import com.typesafe.config.Config;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends messages as UDP multicast datagrams, for nodes on the same network segment. Datagrams may
+ * be lost, so pair it with a cache TTL that bounds staleness.
+ */
+public class MulticastTransport implements InvalidationTransport {
+
+  private static final int MAX_DATAGRAM_BYTES = 1024;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final InetSocketAddress group;
+  private final String interfaceName;
+  private final int timeToLive;
+  private MulticastSocket socket;
+  private NetworkInterface networkInterface;
+  private Thread receiver;
+
+  public MulticastTransport(Config config) {
+    this.group = new InetSocketAddress(config.getString("group"), config.getInt("port"));
+    this.interfaceName = config.getString("interface");
+    this.timeToLive = config.getInt("ttl");
+  }
+
+  @Override
+  public void start(Consumer<InvalidationMessage> consumer) {
+    try {
+      socket = new MulticastSocket(group.getPort());
+      socket.setTimeToLive(timeToLive);
+      networkInterface =
+          interfaceName.isEmpty()
+              ? NetworkInterface.getByInetAddress(InetAddress.getLocalHost())
+              : NetworkInterface.getByName(interfaceName);
+      socket.joinGroup(group, networkInterface);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not join multicast group " + group, e);
+    }
+
+    receiver = new Thread(() -> receive(consumer), "cache-invalidation-multicast");
+    receiver.setDaemon(true);
+    receiver.start();
+  }
+
+  @Override
+  public void publish(InvalidationMessage message) {
+    final var bytes = message.encode().getBytes(StandardCharsets.UTF_8);
+    try {
+      socket.send(new DatagramPacket(bytes, bytes.length, group));
+    } catch (IOException e) {
+      logger.warn("Could not send invalidation {}", message.encode(), e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    try {
+      socket.leaveGroup(group, networkInterface);
+    } catch (IOException e) {
+      logger.debug("Could not leave multicast group {}", e.getMessage());
+    }
+    socket.close();
+  }
+
+  private void receive(Consumer<InvalidationMessage> consumer) {
+    final var buffer = new byte[MAX_DATAGRAM_BYTES];
+
+    while (!socket.isClosed()) {
+      try {
+        final var packet = new DatagramPacket(buffer, buffer.length);
+        socket.receive(packet);
+        final var line =
+            new String(
+                packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8);
+        InvalidationMessage.decode(line).ifPresent(consumer);
+      } catch (IOException e) {
+        if (!socket.isClosed()) {
+          logger.warn("Could not receive invalidation", e);
+        }
+      } catch (RuntimeException e) {
+        logger.error("Invalidation failed", e);
+      }
+    }
+  }
+}
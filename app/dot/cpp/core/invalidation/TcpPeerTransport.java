@@ -0,0 +1,191 @@
+package dot.cpp.core.invalidation;
+
+import com.typesafe.config.Config;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends messages as lines over TCP to a configured list of peers and accepts the lines of the
+ * peers on a listening port. Messages are sent from a single background thread, so publishing
+ * never blocks on the network; a peer that is down is retried after a pause and misses the
+ * messages sent meanwhile.
+ */
+public class TcpPeerTransport implements InvalidationTransport {
+
+  private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final int port;
+  private final List<Peer> peers = new ArrayList<>();
+  private final long retryMillis;
+  private final ThreadPoolExecutor sender;
+  private ServerSocket serverSocket;
+
+  public TcpPeerTransport(Config config) {
+    this.port = config.getInt("port");
+    this.retryMillis = config.getDuration("retry.interval").toMillis();
+    config.getStringList("peers").forEach(peer -> peers.add(new Peer(peer)));
+
+    this.sender =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getInt("queue.size")),
+            runnable -> {
+              final var thread = new Thread(runnable, "cache-invalidation-tcp-sender");
+              thread.setDaemon(true);
+              return thread;
+            },
+            (runnable, executor) -> logger.warn("Invalidation queue full, message dropped"));
+  }
+
+  @Override
+  public void start(Consumer<InvalidationMessage> consumer) {
+    try {
+      serverSocket = new ServerSocket(port);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not listen for invalidations on port " + port, e);
+    }
+
+    final var acceptor = new Thread(() -> accept(consumer), "cache-invalidation-tcp-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  @Override
+  public void publish(InvalidationMessage message) {
+    final var line = message.encode();
+    sender.execute(() -> peers.forEach(peer -> peer.send(line)));
+  }
+
+  @Override
+  public void stop() {
+    sender.shutdown();
+    peers.forEach(Peer::close);
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      logger.debug("Could not close invalidation server socket {}", e.getMessage());
+    }
+  }
+
+  private void accept(Consumer<InvalidationMessage> consumer) {
+    while (!serverSocket.isClosed()) {
+      try {
+        final var socket = serverSocket.accept();
+        final var reader =
+            new Thread(() -> read(socket, consumer), "cache-invalidation-tcp-reader");
+        reader.setDaemon(true);
+        reader.start();
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          logger.warn("Could not accept invalidation connection", e);
+        }
+      }
+    }
+  }
+
+  private void read(Socket socket, Consumer<InvalidationMessage> consumer) {
+    try (socket;
+        final var reader =
+            new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        try {
+          InvalidationMessage.decode(line).ifPresent(consumer);
+        } catch (RuntimeException e) {
+          logger.error("Invalidation failed", e);
+        }
+      }
+    } catch (IOException e) {
+      logger.debug("Invalidation connection closed {}", e.getMessage());
+    }
+  }
+
+  /** Outgoing connection to a peer, used only from the sender thread. */
+  private final class Peer {
+
+    private final String host;
+    private final int peerPort;
+    private Socket socket;
+    private Writer writer;
+    private long retryAt;
+
+    private Peer(String address) {
+      final var separator = address.lastIndexOf(':');
+      if (separator < 1) {
+        throw new IllegalArgumentException("Invalidation peer must be host:port, got " + address);
+      }
+      this.host = address.substring(0, separator);
+      this.peerPort = Integer.parseInt(address.substring(separator + 1));
+    }
+
+    private void send(String line) {
+      if (writer == null && !connect()) {
+        return;
+      }
+
+      try {
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+      } catch (IOException e) {
+        logger.warn("Could not send invalidation to {}:{}", host, peerPort);
+        close();
+        retryAt = System.currentTimeMillis() + retryMillis;
+      }
+    }
+
+    private boolean connect() {
+      if (System.currentTimeMillis() < retryAt) {
+        return false;
+      }
+
+      try {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, peerPort), CONNECT_TIMEOUT_MILLIS);
+        socket.setTcpNoDelay(true);
+        writer =
+            new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        return true;
+      } catch (IOException e) {
+        logger.debug("Invalidation peer {}:{} unreachable {}", host, peerPort, e.getMessage());
+        close();
+        retryAt = System.currentTimeMillis() + retryMillis;
+        return false;
+      }
+    }
+
+    private void close() {
+      writer = null;
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          logger.debug("Could not close invalidation peer socket {}", e.getMessage());
+        }
+        socket = null;
+      }
+    }
+  }
+}
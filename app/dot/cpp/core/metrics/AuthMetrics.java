@@ -0,0 +1,197 @@
+package dot.cpp.core.metrics;
+
+import dot.cpp.core.cache.RefreshGraceCache;
+import dot.cpp.core.cache.UserSnapshotCache;
+import dot.cpp.core.cache.VerifiedTokenCache;
+import dot.cpp.core.enums.ErrorCodes;
+import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.services.PasswordHashingExecutor;
+import dot.cpp.core.services.TokenRevocationService;
+import dot.cpp.core.utils.SingleFlight;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Metrics of the authentication hot path: request outcomes, refreshes and logins, latencies of
+ * token checks, refreshes, password checks and session database calls, and gauges of the caches
+ * and the password hashing pool. Every metric is created up front, so recording only touches a
+ * {@link java.util.concurrent.atomic.LongAdder}.
+ */
+@Singleton
+public class AuthMetrics {
+
+  private static final String RESULT = "result";
+  private static final String CODE = "code";
+  private static final String OPERATION = "operation";
+
+  private final MetricsRegistry registry;
+  private final Counter requestsAuthorized;
+  private final Counter requestsRefreshed;
+  private final Counter requestsRejected;
+  private final Counter loginsSucceeded;
+  private final Map<ErrorCodes, Counter> refreshFailures = new EnumMap<>(ErrorCodes.class);
+  private final Map<ErrorCodes, Counter> loginFailures = new EnumMap<>(ErrorCodes.class);
+  private final Histogram authorizeLatency;
+  private final Histogram refreshLatency;
+  private final Histogram passwordCheckLatency;
+
+  @Inject
+  public AuthMetrics(
+      MetricsRegistry registry,
+      VerifiedTokenCache verifiedTokenCache,
+      UserSnapshotCache userSnapshotCache,
+      PasswordHashingExecutor hashingExecutor,
+      TokenRevocationService revocationService,
+      RefreshGraceCache refreshGraceCache) {
+    this.registry = registry;
+
+    final var requests = "auth_requests_total";
+    final var requestsHelp = "Authenticated requests by result";
+    requestsAuthorized = registry.counter(requests, requestsHelp, RESULT, "authorized");
+    requestsRefreshed = registry.counter(requests, requestsHelp, RESULT, "refreshed");
+    requestsRejected = registry.counter(requests, requestsHelp, RESULT, "rejected");
+
+    final var loginHelp = "Login attempts by result";
+    loginsSucceeded = registry.counter("auth_logins_total", loginHelp, RESULT, "success");
+
+    for (var errorCode : ErrorCodes.values()) {
+      final var code = errorCode.name().toLowerCase(Locale.ROOT);
+      refreshFailures.put(
+          errorCode,
+          registry.counter("auth_refresh_failures_total", "Failed refreshes by error", CODE, code));
+      loginFailures.put(errorCode, registry.counter("auth_logins_total", loginHelp, RESULT, code));
+    }
+
+    authorizeLatency =
+        registry.histogram("auth_authorize_seconds", "Access token authorization latency");
+    refreshLatency = registry.histogram("auth_refresh_seconds", "Token refresh latency");
+    passwordCheckLatency =
+        registry.histogram(
+            "auth_password_check_seconds", "Password check latency, including queueing");
+
+    registry.gauge(
+        "auth_token_cache_size", "Verified access tokens in cache", verifiedTokenCache::size);
+    registry.gauge(
+        "auth_token_cache_hit_ratio",
+        "Verified token cache hit ratio",
+        verifiedTokenCache::hitRate);
+    registry.gauge(
+        "auth_user_snapshot_hit_ratio",
+        "User snapshot cache hit ratio",
+        userSnapshotCache::hitRate);
+    registry.gauge(
+        "auth_refresh_grace_size",
+        "Recently rotated refresh tokens kept for the grace time",
+        refreshGraceCache::size);
+    registry.gauge(
+        "auth_revoked_users", "Users with revoked access tokens", revocationService::size);
+    registry.gauge(
+        "password_hashing_queue_depth",
+        "Password checks waiting for a hashing thread",
+        hashingExecutor::getQueueDepth);
+    registry.gauge(
+        "password_hashing_active_threads",
+        "Hashing threads busy",
+        hashingExecutor::getActiveCount);
+    registry.counter(
+        "password_hashing_rejected_total",
+        "Hashing requests rejected because the pool was saturated",
+        hashingExecutor::getRejectedCount);
+  }
+
+  /**
+   * Exposes how long refreshes wait for a concurrent refresh of the same token.
+   *
+   * @param refreshFlight the single flight coalescing the refreshes
+   */
+  public void registerRefreshFlight(SingleFlight<?, ?> refreshFlight) {
+    registry.gauge(
+        "auth_refresh_inflight", "Refreshes currently in flight", refreshFlight::inFlightCount);
+    registry.counter(
+        "auth_refresh_joined_total",
+        "Refreshes that joined a refresh already in flight",
+        refreshFlight::getJoinCount);
+    registry.counter(
+        "auth_refresh_join_wait_seconds_total",
+        "Total time spent waiting for a refresh already in flight",
+        () -> refreshFlight.getJoinWaitNanos() / 1_000_000_000D);
+  }
+
+  public void requestAuthorized() {
+    requestsAuthorized.increment();
+  }
+
+  public void requestRefreshed() {
+    requestsRefreshed.increment();
+  }
+
+  public void requestRejected() {
+    requestsRejected.increment();
+  }
+
+  public void refreshFailed(LoginException e) {
+    refreshFailures.get(getErrorCode(e)).increment();
+  }
+
+  public void loginSucceeded() {
+    loginsSucceeded.increment();
+  }
+
+  public void loginFailed(LoginException e) {
+    loginFailures.get(getErrorCode(e)).increment();
+  }
+
+  public Histogram getAuthorizeLatency() {
+    return authorizeLatency;
+  }
+
+  public Histogram getRefreshLatency() {
+    return refreshLatency;
+  }
+
+  public Histogram getPasswordCheckLatency() {
+    return passwordCheckLatency;
+  }
+
+  /**
+   * Returns the latency histogram of a session database call.
+   *
+   * @param operation the operation name
+   * @return the histogram
+   */
+  public Histogram getSessionLatency(String operation) {
+    return registry.histogram(
+        "auth_session_db_seconds", "Session database call latency", OPERATION, operation);
+  }
+
+  /**
+   * Runs a call and records its latency.
+   *
+   * @param histogram the histogram to record into
+   * @param call the call
+   * @return the result of the call
+   */
+  public static <T> T time(Histogram histogram, Supplier<T> call) {
+    final var start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      histogram.observeSince(start);
+    }
+  }
+
+  private static ErrorCodes getErrorCode(LoginException e) {
+    // exceptions may carry a copy of the error code, e.g. with details, so codes are compared
+    final var code = e.getErrorCode().getCode();
+    for (var errorCode : ErrorCodes.values()) {
+      if (errorCode.getCode().getCode().equals(code)) {
+        return errorCode;
+      }
+    }
+    return ErrorCodes.GENERAL_ERROR;
+  }
+}
@@ -0,0 +1,21 @@
+package dot.cpp.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonic counter, cheap to increment from many threads. */
+public class Counter {
+
+  private final LongAdder value = new LongAdder();
+
+  public void increment() {
+    value.increment();
+  }
+
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  public long get() {
+    return value.sum();
+  }
+}
@@ -0,0 +1,77 @@
+package dot.cpp.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets from half a millisecond to ten seconds. Observations are
+ * recorded in nanoseconds and exposed in seconds, as Prometheus expects.
+ */
+public class Histogram {
+
+  static final double[] BUCKET_SECONDS = {
+    0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+  };
+
+  private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+  static {
+    for (var i = 0; i < BUCKET_SECONDS.length; i++) {
+      BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * 1_000_000_000D);
+    }
+  }
+
+  // the last bucket counts observations above the largest bound
+  private final LongAdder[] buckets = new LongAdder[BUCKET_NANOS.length + 1];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sumNanos = new LongAdder();
+
+  public Histogram() {
+    for (var i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records the time elapsed since a {@link System#nanoTime()} reading.
+   *
+   * @param startNanos the reading taken when the measured operation started
+   */
+  public void observeSince(long startNanos) {
+    observeNanos(System.nanoTime() - startNanos);
+  }
+
+  public void observeNanos(long nanos) {
+    var bucket = 0;
+    while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+      bucket++;
+    }
+
+    buckets[bucket].increment();
+    count.increment();
+    sumNanos.add(nanos);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public double getSumSeconds() {
+    return sumNanos.sum() / 1_000_000_000D;
+  }
+
+  /**
+   * Returns the cumulative bucket counts, one per bound of {@link #BUCKET_SECONDS} followed by the
+   * total.
+   *
+   * @return the cumulative counts
+   */
+  long[] getCumulativeCounts() {
+    final var counts = new long[buckets.length];
+    var total = 0L;
+    for (var i = 0; i < buckets.length; i++) {
+      total += buckets[i].sum();
+      counts[i] = total;
+    }
+    return counts;
+  }
+}
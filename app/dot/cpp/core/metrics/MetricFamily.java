@@ -0,0 +1,19 @@
+package dot.cpp.core.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/** Metrics sharing a name, help text and type, one per label set. */
+class MetricFamily {
+
+  final String name;
+  final String help;
+  final MetricType type;
+  final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+  MetricFamily(String name, String help, MetricType type) {
+    this.name = name;
+    this.help = help;
+    this.type = type;
+  }
+}
@@ -0,0 +1,18 @@
+package dot.cpp.core.metrics;
+
+/** Prometheus type of a metric family. */
+public enum MetricType {
+  COUNTER("counter"),
+  GAUGE("gauge"),
+  HISTOGRAM("histogram");
+
+  private final String exposition;
+
+  MetricType(String exposition) {
+    this.exposition = exposition;
+  }
+
+  public String getExposition() {
+    return exposition;
+  }
+}
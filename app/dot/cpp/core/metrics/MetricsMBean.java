@@ -0,0 +1,77 @@
+package dot.cpp.core.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/** Read-only JMX view of the {@link MetricsRegistry}, one attribute per series. */
+class MetricsMBean implements DynamicMBean {
+
+  private final MetricsRegistry registry;
+
+  MetricsMBean(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    final var value = registry.snapshot().get(attribute);
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read-only");
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    final var snapshot = registry.snapshot();
+    final var list = new AttributeList();
+    for (var attribute : attributes) {
+      final var value = snapshot.get(attribute);
+      if (value != null) {
+        list.add(new Attribute(attribute, value));
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature)
+      throws ReflectionException {
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    final var attributes =
+        registry.snapshot().keySet().stream()
+            .map(
+                name ->
+                    new MBeanAttributeInfo(
+                        name, Double.class.getName(), name, true, false, false))
+            .toArray(MBeanAttributeInfo[]::new);
+
+    return new MBeanInfo(
+        getClass().getName(),
+        "Core component metrics",
+        attributes,
+        null,
+        new MBeanOperationInfo[0],
+        null);
+  }
+}
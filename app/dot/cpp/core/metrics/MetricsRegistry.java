@@ -0,0 +1,214 @@
+package dot.cpp.core.metrics;
+
+import com.typesafe.config.Config;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Holds the metrics of the core component and exposes them in the Prometheus text format, see
+ * {@link dot.cpp.core.controllers.MetricsController}, and as attributes of a JMX bean.
+ *
+ * <p>Labels are passed as name and value pairs; asking twice for the same name and labels returns
+ * the same metric, so callers should look metrics up once and keep them.
+ */
+@Singleton
+public class MetricsRegistry {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final Map<String, MetricFamily> families = new ConcurrentSkipListMap<>();
+
+  @Inject
+  public MetricsRegistry(Config config, ApplicationLifecycle lifecycle) {
+    if (config.getBoolean("metrics.jmx.enabled")) {
+      registerMBean(config.getString("metrics.jmx.name"), lifecycle);
+    }
+  }
+
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) register(name, help, MetricType.COUNTER, labels, key -> new Counter());
+  }
+
+  /**
+   * Registers a counter whose value is maintained elsewhere, such as a total kept by a component
+   * for its own use. The value must never decrease.
+   *
+   * @param name the metric name
+   * @param help the metric description
+   * @param value the current total
+   * @param labels the label name and value pairs
+   */
+  public void counter(String name, String help, DoubleSupplier value, String... labels) {
+    register(name, help, MetricType.COUNTER, labels, key -> value);
+  }
+
+  public Histogram histogram(String name, String help, String... labels) {
+    return (Histogram) register(name, help, MetricType.HISTOGRAM, labels, key -> new Histogram());
+  }
+
+  public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+    register(name, help, MetricType.GAUGE, labels, key -> value);
+  }
+
+  /**
+   * Renders every metric in the Prometheus text exposition format.
+   *
+   * @return the exposition text
+   */
+  public String scrape() {
+    final var text = new StringBuilder(4096);
+
+    for (var family : families.values()) {
+      text.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      text.append("# TYPE ").append(family.name).append(' ');
+      text.append(family.type.getExposition()).append('\n');
+
+      family.series.forEach(
+          (labels, metric) -> {
+            if (metric instanceof Histogram histogram) {
+              appendHistogram(text, family.name, labels, histogram);
+            } else {
+              appendSample(text, family.name, labels, getValue(metric));
+            }
+          });
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Returns the current value of every series, keyed by name and labels. Histograms contribute
+   * their count and sum.
+   *
+   * @return the values
+   */
+  public Map<String, Double> snapshot() {
+    final var values = new LinkedHashMap<String, Double>();
+
+    for (var family : families.values()) {
+      family.series.forEach(
+          (labels, metric) -> {
+            final var key = family.name + labels;
+            if (metric instanceof Histogram histogram) {
+              values.put(key + ".count", (double) histogram.getCount());
+              values.put(key + ".sum", histogram.getSumSeconds());
+            } else {
+              values.put(key, getValue(metric));
+            }
+          });
+    }
+
+    return values;
+  }
+
+  private Object register(
+      String name,
+      String help,
+      MetricType type,
+      String[] labels,
+      Function<String, Object> factory) {
+    final var family =
+        families.computeIfAbsent(name, familyName -> new MetricFamily(familyName, help, type));
+
+    if (family.type != type) {
+      throw new IllegalArgumentException(
+          "Metric " + name + " is already registered as " + family.type);
+    }
+
+    return family.series.computeIfAbsent(formatLabels(labels), factory);
+  }
+
+  private static String formatLabels(String... labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name and value pairs");
+    }
+
+    if (labels.length == 0) {
+      return "";
+    }
+
+    final var text = new StringBuilder("{");
+    for (var i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        text.append(',');
+      }
+      text.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+    }
+    return text.append('}').toString();
+  }
+
+  private static String escape(String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static double getValue(Object metric) {
+    if (metric instanceof Counter counter) {
+      return counter.get();
+    }
+    return ((DoubleSupplier) metric).getAsDouble();
+  }
+
+  private static void appendHistogram(
+      StringBuilder text, String name, String labels, Histogram histogram) {
+    final var counts = histogram.getCumulativeCounts();
+    // the le label goes after the series labels, inside the same braces
+    final var prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+
+    for (var i = 0; i < Histogram.BUCKET_SECONDS.length; i++) {
+      text.append(name).append("_bucket").append(prefix);
+      text.append("le=\"").append(Histogram.BUCKET_SECONDS[i]).append("\"} ");
+      text.append(counts[i]).append('\n');
+    }
+    text.append(name).append("_bucket").append(prefix).append("le=\"+Inf\"} ");
+    text.append(counts[counts.length - 1]).append('\n');
+
+    appendSample(text, name + "_sum", labels, histogram.getSumSeconds());
+    appendSample(text, name + "_count", labels, histogram.getCount());
+  }
+
+  private static void appendSample(StringBuilder text, String name, String labels, double value) {
+    text.append(name).append(labels).append(' ');
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      text.append((long) value);
+    } else {
+      text.append(value);
+    }
+    text.append('\n');
+  }
+
+  private void registerMBean(String objectName, ApplicationLifecycle lifecycle) {
+    try {
+      final var server = ManagementFactory.getPlatformMBeanServer();
+      final var name = new ObjectName(objectName);
+
+      // a previous application in the same JVM, e.g. in tests or after a dev mode reload
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(new MetricsMBean(this), name);
+
+      lifecycle.addStopHook(
+          () -> {
+            try {
+              server.unregisterMBean(name);
+            } catch (JMException e) {
+              logger.debug("Could not unregister metrics bean {}", e.getMessage());
+            }
+            return CompletableFuture.completedFuture(null);
+          });
+    } catch (JMException e) {
+      logger.warn("Could not register metrics bean {}", objectName, e);
+    }
+  }
+}
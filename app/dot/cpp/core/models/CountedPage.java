@@ -0,0 +1,25 @@
+package dot.cpp.core.models;
+
+import java.util.List;
+
+/**
+ * A page of entities together with the total number of entities matching the query. When the
+ * count is capped, {@code totalCount} is the cap and the real total is larger, to be shown as
+ * e.g. "10,000+".
+ *
+ * @param <T> entity type
+ */
+public class CountedPage<T> {
+
+  public final List<T> entities;
+  public final long totalCount;
+  public final boolean countCapped;
+  public final int numberOfPages;
+
+  public CountedPage(List<T> entities, long totalCount, boolean countCapped, int numberOfPages) {
+    this.entities = entities;
+    this.totalCount = totalCount;
+    this.countCapped = countCapped;
+    this.numberOfPages = numberOfPages;
+  }
+}
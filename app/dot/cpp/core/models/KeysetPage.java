@@ -0,0 +1,22 @@
+package dot.cpp.core.models;
+
+import java.util.List;
+
+/**
+ * A page of a keyset paginated list, with the opaque tokens of the neighbouring pages. A token is
+ * null when there is no page in that direction.
+ *
+ * @param <T> entity type
+ */
+public class KeysetPage<T> {
+
+  public final List<T> entities;
+  public final String nextPageToken;
+  public final String previousPageToken;
+
+  public KeysetPage(List<T> entities, String nextPageToken, String previousPageToken) {
+    this.entities = entities;
+    this.nextPageToken = nextPageToken;
+    this.previousPageToken = previousPageToken;
+  }
+}
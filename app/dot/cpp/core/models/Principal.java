@@ -0,0 +1,30 @@
+package dot.cpp.core.models;
+
+import dot.cpp.core.enums.UserRole;
+import java.util.List;
+import play.libs.Json;
+
+/** The authenticated user of a request, available in the request attributes. */
+public class Principal {
+
+  public final String userId;
+  public final UserRole userRole;
+  public final String userName;
+  public final List<String> groups;
+
+  public Principal(String userId, UserRole userRole, String userName, List<String> groups) {
+    this.userId = userId;
+    this.userRole = userRole;
+    this.userName = userName;
+    this.groups = groups;
+  }
+
+  public boolean isInGroup(String group) {
+    return groups.contains(group);
+  }
+
+  @Override
+  public String toString() {
+    return Json.stringify(Json.toJson(this));
+  }
+}
@@ -0,0 +1,15 @@
+package dot.cpp.core.models;
+
+/** Tokens issued by a refresh token rotation, together with the session owner and client IP. */
+public class RotatedTokens {
+
+  public final String userId;
+  public final String clientIp;
+  public final AuthTokens authTokens;
+
+  public RotatedTokens(String userId, String clientIp, AuthTokens authTokens) {
+    this.userId = userId;
+    this.clientIp = clientIp;
+    this.authTokens = authTokens;
+  }
+}
@@ -0,0 +1,29 @@
+package dot.cpp.core.models;
+
+import dot.cpp.core.models.user.entity.User;
+import java.util.List;
+
+/** Immutable copy of the user fields needed to build a {@link Principal}. */
+public class UserSnapshot {
+
+  public static final UserSnapshot MISSING = new UserSnapshot(null, List.of(), false);
+
+  public final String userName;
+  public final List<String> groups;
+  public final boolean active;
+
+  public UserSnapshot(String userName, List<String> groups, boolean active) {
+    this.userName = userName;
+    this.groups = groups;
+    this.active = active;
+  }
+
+  public static UserSnapshot from(User user) {
+    return user == null
+        ? MISSING
+        : new UserSnapshot(
+            user.getUserName(),
+            user.getGroups() == null ? List.of() : List.copyOf(user.getGroups()),
+            user.isActive());
+  }
+}
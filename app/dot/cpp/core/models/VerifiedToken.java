@@ -0,0 +1,22 @@
+package dot.cpp.core.models;
+
+import dot.cpp.core.enums.UserRole;
+
+public class VerifiedToken {
+
+  public final String userId;
+  public final UserRole userRole;
+  public final long issuedAt;
+  public final long expiresAt;
+
+  public VerifiedToken(String userId, UserRole userRole, long issuedAt, long expiresAt) {
+    this.userId = userId;
+    this.userRole = userRole;
+    this.issuedAt = issuedAt;
+    this.expiresAt = expiresAt;
+  }
+
+  public boolean isExpired(long now) {
+    return expiresAt <= now;
+  }
+}
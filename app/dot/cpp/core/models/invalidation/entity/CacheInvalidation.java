@@ -0,0 +1,72 @@
+package dot.cpp.core.models.invalidation.entity;
+
+import dev.morphia.annotations.Entity;
+import dot.cpp.core.annotations.EntityIndex;
+import dot.cpp.repository.models.BaseEntity;
+import java.util.Date;
+import play.libs.Json;
+
+/**
+ * Cache invalidation published through the database, see {@link
+ * dot.cpp.core.invalidation.MongoPollingTransport}. Removed by its TTL index once every node had
+ * the chance to read it.
+ */
+@Entity("CacheInvalidation")
+@EntityIndex(fields = CacheInvalidation.CREATED_AT)
+@EntityIndex(fields = CacheInvalidation.EXPIRE_AT, expireAfterSeconds = 0L)
+public class CacheInvalidation extends BaseEntity {
+
+  public static final String CREATED_AT = "createdAt";
+  public static final String EXPIRE_AT = "expireAt";
+
+  private String nodeId;
+  private String collection;
+  private String entityId;
+  private Long createdAt;
+  private Date expireAt;
+
+  @Override
+  public String toString() {
+    return Json.stringify(Json.toJson(this));
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public void setNodeId(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  public String getCollection() {
+    return collection;
+  }
+
+  public void setCollection(String collection) {
+    this.collection = collection;
+  }
+
+  public String getEntityId() {
+    return entityId;
+  }
+
+  public void setEntityId(String entityId) {
+    this.entityId = entityId;
+  }
+
+  public Long getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Long createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Date getExpireAt() {
+    return expireAt;
+  }
+
+  public void setExpireAt(Date expireAt) {
+    this.expireAt = expireAt;
+  }
+}
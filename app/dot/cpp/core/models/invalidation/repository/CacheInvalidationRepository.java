@@ -0,0 +1,8 @@
+package dot.cpp.core.models.invalidation.repository;
+
+import dot.cpp.core.models.invalidation.entity.CacheInvalidation;
+import dot.cpp.repository.repository.BaseRepository;
+import javax.inject.Singleton;
+
+@Singleton
+public class CacheInvalidationRepository extends BaseRepository<CacheInvalidation> {}
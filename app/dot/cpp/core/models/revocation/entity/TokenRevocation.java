@@ -0,0 +1,54 @@
+package dot.cpp.core.models.revocation.entity;
+
+import dev.morphia.annotations.Entity;
+import dot.cpp.core.annotations.EntityIndex;
+import dot.cpp.repository.models.BaseEntity;
+import java.util.Date;
+import play.libs.Json;
+
+/**
+ * Access tokens of the user issued up to {@code notBefore}, in whole seconds, are revoked. The
+ * document is removed by its TTL index once every such token has expired.
+ */
+@Entity("TokenRevocation")
+@EntityIndex(fields = TokenRevocation.USER_ID, unique = true)
+@EntityIndex(fields = TokenRevocation.EXPIRE_AT, expireAfterSeconds = 0L)
+public class TokenRevocation extends BaseEntity {
+
+  public static final String USER_ID = "userId";
+  public static final String NOT_BEFORE = "notBefore";
+  public static final String EXPIRE_AT = "expireAt";
+
+  private String userId;
+  private Long notBefore;
+  private Date expireAt;
+
+  @Override
+  public String toString() {
+    return Json.stringify(Json.toJson(this));
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public Long getNotBefore() {
+    return notBefore;
+  }
+
+  public void setNotBefore(Long notBefore) {
+    this.notBefore = notBefore;
+  }
+
+  public Date getExpireAt() {
+    return expireAt;
+  }
+
+  public void setExpireAt(Date expireAt) {
+    this.expireAt = expireAt;
+  }
+}
@@ -0,0 +1,46 @@
+package dot.cpp.core.models.revocation.repository;
+
+import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
+
+import dev.morphia.UpdateOptions;
+import dev.morphia.query.filters.Filters;
+import dev.morphia.query.updates.UpdateOperators;
+import dot.cpp.core.models.revocation.entity.TokenRevocation;
+import dot.cpp.repository.repository.BaseRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class TokenRevocationRepository extends BaseRepository<TokenRevocation> {
+
+  private final RepositoryService repositoryService;
+
+  @Inject
+  public TokenRevocationRepository(RepositoryService repositoryService) {
+    this.repositoryService = repositoryService;
+  }
+
+  /**
+   * Creates or raises the revocation of a user in a single upsert. Both times only ever move
+   * forward, so concurrent revocations on any node keep the latest one.
+   *
+   * @param userId the user ID
+   * @param notBefore the time in milliseconds up to which tokens are revoked
+   * @param expireAt the time the revocation can be removed
+   */
+  public void revoke(String userId, long notBefore, Date expireAt) {
+    repositoryService
+        .getDatastore()
+        .find(TokenRevocation.class)
+        .filter(Filters.eq(TokenRevocation.USER_ID, userId))
+        .update(
+            new UpdateOptions().upsert(true),
+            UpdateOperators.max(TokenRevocation.NOT_BEFORE, notBefore),
+            UpdateOperators.max(TokenRevocation.EXPIRE_AT, expireAt),
+            UpdateOperators.setOnInsert(Map.of(RECORD_ID, UUID.randomUUID().toString())));
+  }
+}
@@ -3,13 +3,24 @@ package dot.cpp.core.models.session.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import dev.morphia.annotations.Entity;
 import dev.morphia.annotations.Transient;
+import dot.cpp.core.annotations.EntityIndex;
 import dot.cpp.repository.models.BaseEntity;
 import play.libs.Json;
 import play.mvc.Http.Cookie;
 
 @Entity("Session")
+@EntityIndex(fields = Session.REFRESH_TOKEN, unique = true)
+@EntityIndex(fields = Session.OLD_REFRESH_TOKEN, sparse = true)
+@EntityIndex(fields = Session.USER_ID)
+@EntityIndex(fields = Session.REFRESH_EXPIRY_TIME)
 public class Session extends BaseEntity {
 
+  public static final String USER_ID = "userId";
+  public static final String REFRESH_TOKEN = "refreshToken";
+  public static final String REFRESH_EXPIRY_TIME = "refreshExpiryTime";
+  public static final String OLD_REFRESH_TOKEN = "oldRefreshToken";
+  public static final String CLIENT_IP = "clientIp";
+
   private String userId;
   private String accessToken;
   private String refreshToken;
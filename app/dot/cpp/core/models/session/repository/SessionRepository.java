@@ -1,13 +1,91 @@
 package dot.cpp.core.models.session.repository;
 
+import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
+
+import com.mongodb.client.model.ReturnDocument;
+import dev.morphia.ModifyOptions;
+import dev.morphia.query.filters.Filters;
+import dev.morphia.query.updates.UpdateOperators;
 import dot.cpp.core.models.session.entity.Session;
 import dot.cpp.repository.repository.BaseRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.Collection;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 @Singleton
 public class SessionRepository extends BaseRepository<Session> {
 
+  private final RepositoryService repositoryService;
+
   @Inject
-  public SessionRepository() {}
+  public SessionRepository(RepositoryService repositoryService) {
+    this.repositoryService = repositoryService;
+  }
+
+  /**
+   * Atomically rotates the refresh token of a session. The update is applied only if the session
+   * still holds the given refresh token, belongs to the client IP and has not expired, so exactly
+   * one of any number of concurrent rotations, on any node, succeeds.
+   *
+   * @param refreshToken the refresh token expected on the session
+   * @param clientIp the IP the session is bound to
+   * @param newRefreshToken the refresh token to set
+   * @param now the current time in milliseconds
+   * @param newRefreshExpiryTime the new refresh expiry time in milliseconds
+   * @return the rotated session, or null if no session matched
+   */
+  public Session rotateRefreshToken(
+      String refreshToken,
+      String clientIp,
+      String newRefreshToken,
+      long now,
+      long newRefreshExpiryTime) {
+    return repositoryService
+        .getDatastore()
+        .find(Session.class)
+        .filter(
+            Filters.eq(Session.REFRESH_TOKEN, refreshToken),
+            Filters.eq(Session.CLIENT_IP, clientIp),
+            Filters.gte(Session.REFRESH_EXPIRY_TIME, now))
+        .modify(
+            new ModifyOptions().returnDocument(ReturnDocument.AFTER),
+            UpdateOperators.set(Session.REFRESH_TOKEN, newRefreshToken),
+            UpdateOperators.set(Session.OLD_REFRESH_TOKEN, refreshToken),
+            UpdateOperators.set(Session.REFRESH_EXPIRY_TIME, newRefreshExpiryTime));
+  }
+
+  /**
+   * Deletes the sessions whose refresh token expired before the given time, in batches so that a
+   * large backlog does not turn into one long-running delete.
+   *
+   * @param expiredBefore the time in milliseconds before which sessions are expired
+   * @param batchSize the maximum number of sessions deleted at once
+   * @return the number of deleted sessions
+   */
+  public long deleteExpired(long expiredBefore, int batchSize) {
+    final var expiredFilter = Filters.lt(Session.REFRESH_EXPIRY_TIME, expiredBefore);
+    var deleted = 0L;
+
+    while (true) {
+      final var ids =
+          list(expiredFilter, 0, batchSize).stream().map(Session::getRecordId).toList();
+      if (ids.isEmpty()) {
+        return deleted;
+      }
+
+      deleted += deleteByRecordIds(ids);
+      if (ids.size() < batchSize) {
+        return deleted;
+      }
+    }
+  }
+
+  public long deleteByUserId(String userId) {
+    return deleteWithFilter(Filters.eq(Session.USER_ID, userId));
+  }
+
+  public long deleteByRecordIds(Collection<String> recordIds) {
+    return recordIds.isEmpty() ? 0L : deleteWithFilter(Filters.in(RECORD_ID, recordIds));
+  }
 }
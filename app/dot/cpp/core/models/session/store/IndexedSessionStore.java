@@ -0,0 +1,450 @@
+package dot.cpp.core.models.session.store;
+
+import static dot.cpp.core.metrics.AuthMetrics.time;
+import static dot.cpp.core.services.LoginService.REFRESH_GRACE_TIME;
+
+import com.typesafe.config.Config;
+import dot.cpp.core.enums.SessionDurability;
+import dot.cpp.core.metrics.AuthMetrics;
+import dot.cpp.core.metrics.Histogram;
+import dot.cpp.core.models.session.entity.Session;
+import dot.cpp.core.models.session.repository.SessionRepository;
+import dot.cpp.core.utils.PropertyCopier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Session store that keeps active sessions in memory, indexed by refresh token, old refresh token,
+ * record id and user id, in front of the {@link SessionRepository}. Sessions missing from memory
+ * are read through from the database, so they survive restarts.
+ *
+ * <p>With {@link SessionDurability#SYNC} every change is written to the database before returning
+ * and rotations are conditional updates in the database, which is safe with any number of nodes.
+ * With {@link SessionDurability#WRITE_BEHIND} rotations are applied in memory and the changed
+ * sessions are written in coalesced batches; use it only when a session is always served by the
+ * same node. Sessions that do not fit in memory once {@code session.store.max.sessions} are
+ * indexed are rotated in the database as with {@link SessionDurability#SYNC}; a token that was
+ * rotated in memory is never rotated again from the stale copy in the database.
+ */
+@Singleton
+public class IndexedSessionStore implements SessionStore {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final SessionRepository sessionRepository;
+  private final SessionDurability durability;
+  private final int maxSessions;
+  private final int flushBatchSize;
+
+  private final Map<String, Entry> byRecordId = new ConcurrentHashMap<>();
+  private final Map<String, Entry> byRefreshToken = new ConcurrentHashMap<>();
+  private final Map<String, Entry> byOldRefreshToken = new ConcurrentHashMap<>();
+  private final Map<String, Set<Entry>> byUserId = new ConcurrentHashMap<>();
+  private final Queue<Entry> dirtyEntries = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final ScheduledExecutorService scheduler;
+  private final Histogram findLatency;
+  private final Histogram saveLatency;
+  private final Histogram rotateLatency;
+  private final Histogram deleteLatency;
+
+  @Inject
+  public IndexedSessionStore(
+      SessionRepository sessionRepository,
+      Config config,
+      ApplicationLifecycle lifecycle,
+      AuthMetrics metrics) {
+    this.sessionRepository = sessionRepository;
+    this.findLatency = metrics.getSessionLatency("find");
+    this.saveLatency = metrics.getSessionLatency("save");
+    this.rotateLatency = metrics.getSessionLatency("rotate");
+    this.deleteLatency = metrics.getSessionLatency("delete");
+    this.durability = SessionDurability.from(config.getString("session.store.durability"));
+    this.maxSessions = config.getInt("session.store.max.sessions");
+    this.flushBatchSize = config.getInt("session.store.flush.batch.size");
+
+    final var flushInterval = config.getDuration("session.store.flush.interval").toMillis();
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final var thread = new Thread(runnable, "session-store-flush");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(
+        this::runMaintenance, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+    lifecycle.addStopHook(
+        () -> {
+          scheduler.shutdown();
+          flush();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  @Override
+  public Session save(Session session) {
+    final var savedSession = time(saveLatency, () -> sessionRepository.save(session));
+    if (byRecordId.size() < maxSessions) {
+      index(savedSession);
+    }
+    return savedSession;
+  }
+
+  @Override
+  public Session findByRefreshToken(String refreshToken) {
+    final var entry = byRefreshToken.get(refreshToken);
+    return entry != null
+        ? entry.snapshot()
+        : readThrough(findByField(Session.REFRESH_TOKEN, refreshToken));
+  }
+
+  @Override
+  public Session findByOldRefreshToken(String refreshToken) {
+    final var entry = byOldRefreshToken.get(refreshToken);
+    return entry != null
+        ? entry.snapshot()
+        : readThrough(findByField(Session.OLD_REFRESH_TOKEN, refreshToken));
+  }
+
+  @Override
+  public List<Session> findByUserId(String userId) {
+    final var sessions = new ArrayList<Session>();
+
+    final var storedSessions =
+        time(findLatency, () -> sessionRepository.listByField(Session.USER_ID, userId));
+
+    for (var session : storedSessions) {
+      final var entry = byRecordId.get(session.getRecordId());
+      sessions.add(entry != null ? entry.snapshot() : session);
+    }
+
+    return sessions;
+  }
+
+  @Override
+  public Session rotateRefreshToken(
+      String refreshToken,
+      String clientIp,
+      String newRefreshToken,
+      long now,
+      long newRefreshExpiryTime) {
+    if (durability == SessionDurability.SYNC) {
+      final var rotatedSession =
+          rotateInDatabase(refreshToken, clientIp, newRefreshToken, now, newRefreshExpiryTime);
+      if (rotatedSession != null) {
+        index(rotatedSession);
+      }
+      return rotatedSession;
+    }
+
+    var entry = byRefreshToken.get(refreshToken);
+    if (entry == null) {
+      final var storedSession = readThrough(findByField(Session.REFRESH_TOKEN, refreshToken));
+      if (storedSession == null) {
+        return null;
+      }
+
+      entry = byRefreshToken.get(refreshToken);
+      if (entry == null) {
+        if (byRecordId.containsKey(storedSession.getRecordId())) {
+          // already rotated in memory, the database still holds the token until the next flush
+          return null;
+        }
+
+        // the store is full and could not index the session, so it is rotated in the database
+        return rotateInDatabase(refreshToken, clientIp, newRefreshToken, now, newRefreshExpiryTime);
+      }
+    }
+
+    synchronized (entry) {
+      final var session = entry.session;
+      if (entry.deleted
+          || !refreshToken.equals(session.getRefreshToken())
+          || !clientIp.equals(session.getClientIp())
+          || session.getRefreshExpiryTime() == null
+          || session.getRefreshExpiryTime() < now) {
+        return null;
+      }
+
+      unindexTokens(entry);
+      session.setOldRefreshToken(refreshToken);
+      session.setRefreshToken(newRefreshToken);
+      session.setRefreshExpiryTime(newRefreshExpiryTime);
+      indexTokens(entry);
+
+      if (!entry.dirty) {
+        entry.dirty = true;
+        dirtyEntries.add(entry);
+      }
+
+      return entry.snapshot();
+    }
+  }
+
+  private Session rotateInDatabase(
+      String refreshToken,
+      String clientIp,
+      String newRefreshToken,
+      long now,
+      long newRefreshExpiryTime) {
+    final var rotatedSession =
+        time(
+            rotateLatency,
+            () ->
+                sessionRepository.rotateRefreshToken(
+                    refreshToken, clientIp, newRefreshToken, now, newRefreshExpiryTime));
+
+    if (rotatedSession == null) {
+      // the cached copy may be stale if another node rotated the session
+      final var staleEntry = byRefreshToken.get(refreshToken);
+      if (staleEntry != null) {
+        unindex(staleEntry);
+      }
+    }
+    return rotatedSession;
+  }
+
+  @Override
+  public void delete(Session session) {
+    evict(byRecordId.get(session.getRecordId()));
+    deleteFromDatabase(
+        () -> {
+          sessionRepository.delete(session);
+          return 1L;
+        });
+  }
+
+  @Override
+  public long deleteByUserId(String userId) {
+    final var entries = byUserId.get(userId);
+    if (entries != null) {
+      entries.forEach(this::evict);
+    }
+
+    return deleteFromDatabase(() -> sessionRepository.deleteByUserId(userId));
+  }
+
+  @Override
+  public long deleteExpired(long expiredBefore, int batchSize) {
+    evictExpired(expiredBefore);
+    return time(deleteLatency, () -> sessionRepository.deleteExpired(expiredBefore, batchSize));
+  }
+
+  @Override
+  public long trimUserSessions(String userId, int maxUserSessions) {
+    final var sessions = findByUserId(userId);
+    if (sessions.size() <= maxUserSessions) {
+      return 0L;
+    }
+
+    final var recordIds =
+        sessions.stream()
+            .sorted(
+                Comparator.comparing(
+                    Session::getRefreshExpiryTime,
+                    Comparator.nullsFirst(Comparator.naturalOrder())))
+            .limit(sessions.size() - (long) maxUserSessions)
+            .map(Session::getRecordId)
+            .toList();
+    recordIds.forEach(recordId -> evict(byRecordId.get(recordId)));
+
+    return deleteFromDatabase(() -> sessionRepository.deleteByRecordIds(recordIds));
+  }
+
+  private void evict(Entry entry) {
+    if (entry != null) {
+      synchronized (entry) {
+        entry.deleted = true;
+      }
+      unindex(entry);
+    }
+  }
+
+  private long deleteFromDatabase(LongSupplier delete) {
+    // a flush in progress must not write the sessions back after they were deleted
+    flushLock.lock();
+    try {
+      return time(deleteLatency, delete::getAsLong);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  public int size() {
+    return byRecordId.size();
+  }
+
+  public int getPendingWrites() {
+    return dirtyEntries.size();
+  }
+
+  /** Writes every pending session change to the database. */
+  public void flush() {
+    while (!dirtyEntries.isEmpty()) {
+      if (!flushBatch()) {
+        return;
+      }
+    }
+  }
+
+  private boolean flushBatch() {
+    final var entries = new ArrayList<Entry>();
+    final var sessions = new ArrayList<Session>();
+
+    flushLock.lock();
+    try {
+      Entry entry;
+      while (sessions.size() < flushBatchSize && (entry = dirtyEntries.poll()) != null) {
+        synchronized (entry) {
+          entry.dirty = false;
+          if (!entry.deleted) {
+            entries.add(entry);
+            sessions.add(entry.snapshot());
+          }
+        }
+      }
+
+      if (!sessions.isEmpty()) {
+        final var start = System.nanoTime();
+        sessionRepository.save(sessions);
+        saveLatency.observeSince(start);
+      }
+      return true;
+    } catch (RuntimeException e) {
+      logger.error("Could not write {} sessions, retrying later", sessions.size(), e);
+      entries.forEach(this::markDirty);
+      return false;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void markDirty(Entry entry) {
+    synchronized (entry) {
+      if (!entry.dirty && !entry.deleted) {
+        entry.dirty = true;
+        dirtyEntries.add(entry);
+      }
+    }
+  }
+
+  private void runMaintenance() {
+    try {
+      flush();
+      evictExpired(System.currentTimeMillis() - REFRESH_GRACE_TIME);
+    } catch (RuntimeException e) {
+      logger.error("Session store maintenance failed", e);
+    }
+  }
+
+  private void evictExpired(long expiredBefore) {
+    byRecordId
+        .values()
+        .forEach(
+            entry -> {
+              synchronized (entry) {
+                final var expiryTime = entry.session.getRefreshExpiryTime();
+                if (entry.dirty || (expiryTime != null && expiryTime >= expiredBefore)) {
+                  return;
+                }
+              }
+              unindex(entry);
+            });
+  }
+
+  private Session findByField(String field, String value) {
+    return time(findLatency, () -> sessionRepository.findByField(field, value));
+  }
+
+  private Session readThrough(Session session) {
+    if (session == null || byRecordId.size() >= maxSessions) {
+      return session;
+    }
+
+    return index(session).snapshot();
+  }
+
+  private Entry index(Session session) {
+    final var newEntry = new Entry(session);
+    final var existingEntry = byRecordId.putIfAbsent(session.getRecordId(), newEntry);
+
+    if (existingEntry == null) {
+      indexTokens(newEntry);
+      byUserId
+          .computeIfAbsent(session.getUserId(), userId -> ConcurrentHashMap.newKeySet())
+          .add(newEntry);
+      return newEntry;
+    }
+
+    // keep the in-memory entry, which may hold changes not yet written to the database
+    if (durability == SessionDurability.SYNC) {
+      synchronized (existingEntry) {
+        unindexTokens(existingEntry);
+        existingEntry.session = session;
+        indexTokens(existingEntry);
+      }
+    }
+    return existingEntry;
+  }
+
+  private void unindex(Entry entry) {
+    synchronized (entry) {
+      byRecordId.remove(entry.session.getRecordId(), entry);
+      unindexTokens(entry);
+      byUserId.computeIfPresent(
+          entry.session.getUserId(),
+          (userId, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+          });
+    }
+  }
+
+  private void indexTokens(Entry entry) {
+    byRefreshToken.put(entry.session.getRefreshToken(), entry);
+    if (entry.session.getOldRefreshToken() != null) {
+      byOldRefreshToken.put(entry.session.getOldRefreshToken(), entry);
+    }
+  }
+
+  private void unindexTokens(Entry entry) {
+    byRefreshToken.remove(entry.session.getRefreshToken(), entry);
+    if (entry.session.getOldRefreshToken() != null) {
+      byOldRefreshToken.remove(entry.session.getOldRefreshToken(), entry);
+    }
+  }
+
+  private static final class Entry {
+
+    private Session session;
+    private boolean dirty;
+    private boolean deleted;
+
+    private Entry(Session session) {
+      this.session = session;
+    }
+
+    private synchronized Session snapshot() {
+      final var copy = new Session();
+      PropertyCopier.getDefault().copy(session, copy);
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package dot.cpp.core.models.session.store;
+
+import com.google.inject.ImplementedBy;
+import dot.cpp.core.models.session.entity.Session;
+import java.util.List;
+
+/** Storage of login sessions used by the login service. */
+@ImplementedBy(IndexedSessionStore.class)
+public interface SessionStore {
+
+  /**
+   * Stores a new session.
+   *
+   * @param session the session
+   * @return the stored session
+   */
+  Session save(Session session);
+
+  Session findByRefreshToken(String refreshToken);
+
+  Session findByOldRefreshToken(String refreshToken);
+
+  List<Session> findByUserId(String userId);
+
+  /**
+   * Rotates the refresh token of a session if it still holds the given refresh token, belongs to
+   * the client IP and has not expired.
+   *
+   * @param refreshToken the refresh token expected on the session
+   * @param clientIp the IP the session is bound to
+   * @param newRefreshToken the refresh token to set
+   * @param now the current time in milliseconds
+   * @param newRefreshExpiryTime the new refresh expiry time in milliseconds
+   * @return the rotated session, or null if no session matched
+   */
+  Session rotateRefreshToken(
+      String refreshToken,
+      String clientIp,
+      String newRefreshToken,
+      long now,
+      long newRefreshExpiryTime);
+
+  void delete(Session session);
+
+  /**
+   * Deletes every session of a user at once.
+   *
+   * @param userId the user ID
+   * @return the number of deleted sessions
+   */
+  long deleteByUserId(String userId);
+
+  /**
+   * Deletes the sessions whose refresh token expired before the given time.
+   *
+   * @param expiredBefore the time in milliseconds before which sessions are expired
+   * @param batchSize the maximum number of sessions deleted at once
+   * @return the number of deleted sessions
+   */
+  long deleteExpired(long expiredBefore, int batchSize);
+
+  /**
+   * Deletes the sessions of a user that exceed the given number, oldest first.
+   *
+   * @param userId the user ID
+   * @param maxSessions the number of sessions to keep
+   * @return the number of deleted sessions
+   */
+  long trimUserSessions(String userId, int maxSessions);
+}
@@ -1,6 +1,7 @@
 package dot.cpp.core.models.user.entity;
 
 import dev.morphia.annotations.Entity;
+import dot.cpp.core.annotations.EntityIndex;
 import dot.cpp.core.constants.Patterns;
 import dot.cpp.core.enums.UserRole;
 import dot.cpp.repository.models.BaseEntity;
@@ -11,8 +12,13 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
 @Entity("User")
+@EntityIndex(fields = "userName")
+@EntityIndex(fields = "email")
+@EntityIndex(fields = "resetPasswordUuid")
 public class User extends BaseEntity {
 
+  public static final String PASSWORD = "password";
+
   @NotBlank private String userName;
 
   @NotBlank private String password = UUID.randomUUID().toString();
@@ -1,8 +1,43 @@
 package dot.cpp.core.models.user.repository;
 
+import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
+
+import dev.morphia.UpdateOptions;
+import dev.morphia.query.filters.Filters;
+import dev.morphia.query.updates.UpdateOperators;
 import dot.cpp.core.models.user.entity.User;
 import dot.cpp.repository.repository.BaseRepository;
+import dot.cpp.repository.services.RepositoryService;
+import javax.inject.Inject;
 import javax.inject.Singleton;
 
 @Singleton
-public class UserRepository extends BaseRepository<User> {}
+public class UserRepository extends BaseRepository<User> {
+
+  private final RepositoryService repositoryService;
+
+  @Inject
+  public UserRepository(RepositoryService repositoryService) {
+    this.repositoryService = repositoryService;
+  }
+
+  /**
+   * Replaces the password hash of a user, only if the stored hash is still the expected one. Other
+   * fields are left untouched, so a concurrent change to the user is not overwritten, and a
+   * password changed in the meantime is not replaced by an older one.
+   *
+   * @param recordId the user ID
+   * @param expectedPassword the password hash expected on the user
+   * @param newPassword the password hash to set
+   * @return true if the password was replaced
+   */
+  public boolean updatePassword(String recordId, String expectedPassword, String newPassword) {
+    return repositoryService
+            .getDatastore()
+            .find(User.class)
+            .filter(Filters.eq(RECORD_ID, recordId), Filters.eq(User.PASSWORD, expectedPassword))
+            .update(new UpdateOptions(), UpdateOperators.set(User.PASSWORD, newPassword))
+            .getModifiedCount()
+        > 0;
+  }
+}
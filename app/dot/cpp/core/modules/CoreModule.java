@@ -0,0 +1,15 @@
+package dot.cpp.core.modules;
+
+import com.google.inject.AbstractModule;
+import dot.cpp.core.services.IndexBootstrapper;
+import dot.cpp.core.services.SessionSweeper;
+
+/** Starts the background services of the core component; enabled from reference.conf. */
+public class CoreModule extends AbstractModule {
+
+  @Override
+  protected void configure() {
+    bind(IndexBootstrapper.class).asEagerSingleton();
+    bind(SessionSweeper.class).asEagerSingleton();
+  }
+}
@@ -1,47 +1,120 @@
 package dot.cpp.core.services;
 
+import static dot.cpp.core.helpers.PaginationHelper.getKeysetSort;
 import static dot.cpp.core.helpers.PaginationHelper.getPagesNumber;
+import static dot.cpp.core.helpers.PaginationHelper.getSeekFilter;
+import static dot.cpp.core.helpers.PaginationHelper.getSkip;
+import static dot.cpp.core.helpers.PaginationHelper.getSortSignature;
+import static dot.cpp.core.helpers.PaginationHelper.reverseSort;
 import static dot.cpp.core.helpers.ValidationHelper.isEmpty;
 import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.CountOptions;
 import com.typesafe.config.Config;
+import dev.morphia.annotations.Entity;
+import dev.morphia.query.FindOptions;
+import dev.morphia.query.MorphiaCursor;
 import dev.morphia.query.Sort;
 import dev.morphia.query.filters.Filter;
 import dev.morphia.query.filters.Filters;
+import dot.cpp.core.cache.EntityCache;
+import dot.cpp.core.enums.CountMode;
 import dot.cpp.core.enums.ErrorCodes;
 import dot.cpp.core.exceptions.BaseException;
+import dot.cpp.core.invalidation.InvalidationBus;
+import dot.cpp.core.metrics.MetricsRegistry;
 import dot.cpp.core.models.BaseRequest;
+import dot.cpp.core.models.CountedPage;
 import dot.cpp.core.models.HistoryEntry;
+import dot.cpp.core.models.KeysetPage;
 import dot.cpp.core.models.user.entity.User;
-import dot.cpp.core.models.user.repository.UserRepository;
+import dot.cpp.core.utils.PageToken;
+import dot.cpp.core.utils.Projection;
+import dot.cpp.core.utils.PropertyCopier;
 import dot.cpp.repository.models.BaseEntity;
 import dot.cpp.repository.repository.BaseRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.inject.Inject;
 import javax.validation.Validation;
 import javax.validation.Validator;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
 import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 
 public abstract class EntityService<T extends BaseEntity, S extends BaseRequest> {
 
   private static final String INVALID = "invalid";
+  private static final String CACHE_CONFIG = "entity.cache.";
+  private static final String ID = "_id";
+  private static final String NO_HISTORY_COLLECTION = "";
+  private static final String MODIFIED_BY = "modifiedBy";
+  private static final String MODIFIED_AT = "modifiedAt";
+  private static final String MODIFIED_COMMENT = "modifiedComment";
+  private static final String USER_NAME = "userName";
+  private static final Projection HISTORY_PROJECTION =
+      Projection.of(MODIFIED_BY, MODIFIED_AT, MODIFIED_COMMENT);
+  private static final Sort[] HISTORY_SORT = {Sort.descending(MODIFIED_AT), Sort.descending(ID)};
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   private final BaseRepository<T> repository;
   private final Validator validator;
   protected final int pageSize;
-
-  @Inject private UserRepository userRepository;
-
+  private final int streamBatchSize;
+  private final long countCap;
+  private final EntityCache<BsonDocument> entityCache;
+  private final EntityCache<BsonDocument> fieldCache;
+  private InvalidationBus invalidationBus;
+  private String collectionName;
+  // the collection found to hold the history records, or NO_HISTORY_COLLECTION
+  private volatile String historyCollectionName;
+
+  private RepositoryService repositoryService;
+  private Class<T> entityClass;
+  private final Map<Projection, String[]> projectionFields = new ConcurrentHashMap<>();
+  private final Map<Class<?>, View<?>> views = new ConcurrentHashMap<>();
+  // entities read with a projection, by identity, so they are rejected by save
+  private final Cache<T, Boolean> projectedEntities = Caffeine.newBuilder().weakKeys().build();
+
+  /**
+   * Creates the service. The read-through entity cache is configured under {@code
+   * entity.cache.<service class simple name>}, falling back to {@code entity.cache.default}, and
+   * is disabled unless {@code enabled} is set. Entities are cached encoded, so every read returns
+   * an instance of its own that callers may modify freely.
+   *
+   * @param repository the repository of the entities
+   * @param config the application configuration
+   */
   protected EntityService(BaseRepository<T> repository, Config config) {
     this.repository = repository;
     try (final var factory =
@@ -52,6 +125,73 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
       validator = factory.getValidator();
     }
     this.pageSize = config.getInt("list.page.size");
+    this.streamBatchSize = config.getInt("entity.stream.batch.size");
+    this.countCap = config.getLong("list.count.cap");
+
+    final var servicePath = CACHE_CONFIG + getClass().getSimpleName();
+    final var defaultCacheConfig = config.getConfig(CACHE_CONFIG + "default");
+    final var cacheConfig =
+        config.hasPath(servicePath)
+            ? config.getConfig(servicePath).withFallback(defaultCacheConfig)
+            : defaultCacheConfig;
+
+    if (cacheConfig.getBoolean("enabled")) {
+      this.entityCache = new EntityCache<>(cacheConfig);
+      this.fieldCache = new EntityCache<>(cacheConfig);
+    } else {
+      this.entityCache = null;
+      this.fieldCache = null;
+    }
+  }
+
+  @Inject
+  @SuppressWarnings("unchecked")
+  private void setRepositoryService(RepositoryService repositoryService) {
+    this.repositoryService = repositoryService;
+    this.entityClass = (Class<T>) getNewEntity().getClass();
+  }
+
+  @Inject
+  private void subscribeToInvalidations(InvalidationBus invalidationBus) {
+    this.invalidationBus = invalidationBus;
+    this.collectionName = getCollectionName();
+    invalidationBus.subscribe(collectionName, this::afterRemoteWrite);
+  }
+
+  private String getCollectionName() {
+    final var entityClass = getNewEntity().getClass();
+    final var entity = entityClass.getAnnotation(Entity.class);
+    // "." is the Morphia default, which names the collection after the class
+    return entity == null || ".".equals(entity.value())
+        ? entityClass.getSimpleName()
+        : entity.value();
+  }
+
+  @Inject
+  private void registerCacheMetrics(MetricsRegistry metricsRegistry) {
+    if (entityCache == null) {
+      return;
+    }
+
+    final var service = getClass().getSimpleName();
+    metricsRegistry.gauge(
+        "entity_cache_hits",
+        "Entity cache hits by service",
+        () -> entityCache.getHitCount() + fieldCache.getHitCount(),
+        "service",
+        service);
+    metricsRegistry.gauge(
+        "entity_cache_misses",
+        "Entity cache misses by service",
+        () -> entityCache.getMissCount() + fieldCache.getMissCount(),
+        "service",
+        service);
+    metricsRegistry.gauge(
+        "entity_cache_size",
+        "Cached entities by service",
+        () -> entityCache.size() + fieldCache.size(),
+        "service",
+        service);
   }
 
   protected BaseRepository<T> getRepository() {
@@ -63,7 +203,7 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
       throw notFoundException();
     }
 
-    final var entity = repository.findById(id);
+    final var entity = findCachedById(id);
     if (entity == null) {
       throw notFoundException();
     }
@@ -71,6 +211,51 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
     return entity;
   }
 
+  /**
+   * Finds an entity with only the projected fields loaded. Projected reads bypass the entity
+   * cache, and the entities they return are rejected by save.
+   *
+   * @param id the record id
+   * @param projection the fields to load
+   * @return the projected entity
+   * @throws BaseException if no entity has the id
+   */
+  public T findById(String id, Projection projection) throws BaseException {
+    if (isEmpty(id)) {
+      throw notFoundException();
+    }
+    return findFirstProjected(Filters.eq(RECORD_ID, id), projection);
+  }
+
+  /**
+   * Finds an entity and maps it to a view, loading only the fields the view can hold.
+   *
+   * @param id the record id
+   * @param viewClass the view class, with a no-arg constructor and setters
+   * @return the view
+   * @throws BaseException if no entity has the id
+   */
+  public <P> P findById(String id, Class<P> viewClass) throws BaseException {
+    final var view = getView(viewClass);
+    return toView(findById(id, view.projection), view);
+  }
+
+  private T findFirstProjected(Filter filter, Projection projection) throws BaseException {
+    final var entities = listProjected(filter, projection, 0, 1);
+    if (entities.isEmpty()) {
+      throw notFoundException();
+    }
+    return entities.get(0);
+  }
+
+  private T findCachedById(String id) {
+    if (entityCache == null) {
+      return repository.findById(id);
+    }
+
+    return decode(entityCache.get(id, key -> encode(repository.findById(key))));
+  }
+
   public T findHistoryRecord(String id, Long timestamp) throws BaseException {
     if (isEmpty(id)) {
       throw notFoundException();
@@ -88,13 +273,54 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
     if (isEmpty(field) || isEmpty(value)) {
       throw notFoundException();
     }
-    final var entity = repository.findByField(field, value);
+    final var entity = findCachedByField(field, value);
     if (entity == null) {
       throw notFoundException();
     }
     return entity;
   }
 
+  public T findByField(String field, String value, Projection projection) throws BaseException {
+    if (isEmpty(field) || isEmpty(value)) {
+      throw notFoundException();
+    }
+    return findFirstProjected(Filters.eq(field, value), projection);
+  }
+
+  private T findCachedByField(String field, String value) {
+    if (fieldCache == null) {
+      return repository.findByField(field, value);
+    }
+
+    final var key = field + '\u0000' + value;
+    return decode(fieldCache.get(key, fieldKey -> encode(repository.findByField(field, value))));
+  }
+
+  @SuppressWarnings("unchecked")
+  private BsonDocument encode(T entity) {
+    if (entity == null) {
+      return null;
+    }
+
+    final var document = new BsonDocument();
+    final var codec =
+        (Codec<T>) repositoryService.getDatastore().getCodecRegistry().get(entity.getClass());
+    codec.encode(new BsonDocumentWriter(document), entity, EncoderContext.builder().build());
+    return document;
+  }
+
+  private T decode(BsonDocument document) {
+    if (document == null) {
+      return null;
+    }
+
+    return repositoryService
+        .getDatastore()
+        .getCodecRegistry()
+        .get(entityClass)
+        .decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+  }
+
   public List<T> list(int skip, int length, Sort... sortBy) {
     return repository.list(null, skip, length, sortBy);
   }
@@ -103,36 +329,426 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
     return repository.list(filter, skip, length, sortBy);
   }
 
+  public List<T> list(
+      Filter filter, int skip, int length, Projection projection, Sort... sortBy) {
+    return listProjected(filter, projection, skip, length, sortBy);
+  }
+
   public List<T> listByIds(Collection<String> ids, Sort... sortBy) {
-    return ids.isEmpty() ? List.of() : listByFieldWithPossibleValues(RECORD_ID, ids, sortBy);
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    // sorted lists are left to the database
+    if (entityCache == null || sortBy.length > 0) {
+      return listByFieldWithPossibleValues(RECORD_ID, ids, sortBy);
+    }
+
+    final var entities = new HashMap<String, T>();
+    final var missingIds = new ArrayList<String>();
+    final var loadGeneration = entityCache.getGeneration();
+    for (var id : ids) {
+      final var document = entityCache.get(id);
+      if (document == null) {
+        missingIds.add(id);
+      } else {
+        entities.put(id, decode(document));
+      }
+    }
+
+    if (!missingIds.isEmpty()) {
+      for (var entity : listByFieldWithPossibleValues(RECORD_ID, missingIds)) {
+        entityCache.put(entity.getRecordId(), encode(entity), loadGeneration);
+        entities.put(entity.getRecordId(), entity);
+      }
+    }
+
+    return ids.stream().distinct().map(entities::get).filter(Objects::nonNull).toList();
+  }
+
+  public List<T> listByIds(Collection<String> ids, Projection projection, Sort... sortBy) {
+    return ids.isEmpty()
+        ? List.of()
+        : listProjected(Filters.in(RECORD_ID, ids), projection, 0, 0, sortBy);
   }
 
   public List<T> listByField(String field, String value, Sort... sortBy) {
     return repository.listByField(field, value, sortBy);
   }
 
+  public List<T> listByField(String field, String value, Projection projection, Sort... sortBy) {
+    return listProjected(Filters.eq(field, value), projection, 0, 0, sortBy);
+  }
+
   public List<T> listByFieldWithPossibleValues(String field, Collection<?> values, Sort... sortBy) {
     return repository.listWithFilter(Filters.in(field, values), sortBy);
   }
 
+  public List<T> listByFieldWithPossibleValues(
+      String field, Collection<?> values, Projection projection, Sort... sortBy) {
+    return listProjected(Filters.in(field, values), projection, 0, 0, sortBy);
+  }
+
   public List<T> listAll(Sort... sortBy) {
     return repository.listAll(sortBy);
   }
 
+  public List<T> listAll(Projection projection, Sort... sortBy) {
+    return listProjected(null, projection, 0, 0, sortBy);
+  }
+
   public List<T> listWithFilter(Filter filter, Sort... sortBy) {
     return filter == null ? repository.listAll(sortBy) : repository.listWithFilter(filter, sortBy);
   }
 
+  /**
+   * Lists the entities matching the filter with only the projected fields loaded.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param projection the fields to load
+   * @param sortBy the sort order
+   * @return the projected entities
+   */
+  public List<T> listWithFilter(Filter filter, Projection projection, Sort... sortBy) {
+    return listProjected(filter, projection, 0, 0, sortBy);
+  }
+
+  /**
+   * Lists the entities matching the filter as views, loading only the fields the views can hold.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param viewClass the view class, with a no-arg constructor and setters
+   * @param sortBy the sort order
+   * @return the views
+   */
+  public <P> List<P> listWithFilter(Filter filter, Class<P> viewClass, Sort... sortBy) {
+    final var view = getView(viewClass);
+    return toViews(listWithFilter(filter, view.projection, sortBy), view);
+  }
+
   public List<T> listAllPaginated(int pageNum, Sort... sortBy) {
     return repository.listAllPaginated(pageSize, pageNum - 1, sortBy);
   }
 
+  public List<T> listAllPaginated(int pageNum, Projection projection, Sort... sortBy) {
+    return listWithFilterPaginated(null, pageNum, projection, sortBy);
+  }
+
   public List<T> listWithFilterPaginated(Filter filter, int pageNum, Sort... sortBy) {
     return filter == null
         ? repository.listAllPaginated(pageSize, pageNum - 1, sortBy)
         : repository.listWithFilterPaginated(filter, pageSize, pageNum - 1, sortBy);
   }
 
+  public List<T> listWithFilterPaginated(
+      Filter filter, int pageNum, Projection projection, Sort... sortBy) {
+    return listProjected(filter, projection, getSkip(pageNum, pageSize), pageSize, sortBy);
+  }
+
+  public <P> List<P> listWithFilterPaginated(
+      Filter filter, int pageNum, Class<P> viewClass, Sort... sortBy) {
+    final var view = getView(viewClass);
+    return toViews(listWithFilterPaginated(filter, pageNum, view.projection, sortBy), view);
+  }
+
+  /**
+   * Lists a page of entities together with the number of matching entities. The page is read like
+   * {@link #listWithFilterPaginated(Filter, int, Sort...)} and the count is a separate {@code
+   * countDocuments}, which the database can answer from the filter index alone. With {@link
+   * CountMode#ESTIMATED} the count stops scanning after {@code list.count.cap} matches, and
+   * without a filter it is read from the collection metadata instead. With {@link
+   * CountMode#EXACT} every match is counted, so a broad filter on a large collection costs a full
+   * index or collection scan on each call.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param pageNum the page number, starting at 1
+   * @param countMode how to count the matching entities
+   * @param sortBy the sort order
+   * @return the page with the total count
+   */
+  public CountedPage<T> listWithFilterPaginatedAndCount(
+      Filter filter, int pageNum, CountMode countMode, Sort... sortBy) {
+    return listWithFilterPaginatedAndCount(filter, pageNum, countMode, null, sortBy);
+  }
+
+  /**
+   * Lists a page of projected entities together with the number of matching entities, like
+   * {@link #listWithFilterPaginatedAndCount(Filter, int, CountMode, Sort...)}.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param pageNum the page number, starting at 1
+   * @param countMode how to count the matching entities
+   * @param projection the fields to load, or null for whole entities
+   * @param sortBy the sort order
+   * @return the page with the total count
+   */
+  public CountedPage<T> listWithFilterPaginatedAndCount(
+      Filter filter, int pageNum, CountMode countMode, Projection projection, Sort... sortBy) {
+    final var estimated = countMode == CountMode.ESTIMATED;
+    final var entities =
+        projection == null
+            ? listWithFilterPaginated(filter, pageNum, sortBy)
+            : listWithFilterPaginated(filter, pageNum, projection, sortBy);
+
+    final var collection = repositoryService.getDatastore().getCollection(entityClass);
+    if (filter == null && estimated) {
+      return getCountedPage(entities, collection.estimatedDocumentCount(), true);
+    }
+
+    final var countOptions = new CountOptions();
+    if (estimated) {
+      // one match past the cap tells a capped count from an exact one
+      countOptions.limit((int) Math.min(countCap + 1, Integer.MAX_VALUE));
+    }
+    final var total = collection.countDocuments(toFilterDocument(filter), countOptions);
+    return getCountedPage(entities, total, estimated);
+  }
+
+  private Document toFilterDocument(Filter filter) {
+    // the query maps field names and values the way the repository queries do
+    final var query = repositoryService.getDatastore().find(entityClass);
+    if (filter != null) {
+      query.filter(filter);
+    }
+    return query.toDocument();
+  }
+
+  private CountedPage<T> getCountedPage(List<T> entities, long total, boolean capped) {
+    final var countCapped = capped && total > countCap;
+    final var totalCount = countCapped ? countCap : total;
+    return new CountedPage<>(
+        entities, totalCount, countCapped, getPagesNumber(totalCount, pageSize));
+  }
+
+  public KeysetPage<T> listAllByPageToken(String pageToken, Sort... sortBy)
+      throws BaseException {
+    return listWithFilterByPageToken(null, pageToken, null, sortBy);
+  }
+
+  public KeysetPage<T> listWithFilterByPageToken(Filter filter, String pageToken, Sort... sortBy)
+      throws BaseException {
+    return listWithFilterByPageToken(filter, pageToken, null, sortBy);
+  }
+
+  /**
+   * Lists a page of entities by seeking past the sort key of the previous page instead of
+   * skipping, so every page costs the same, however deep. Any sort can be used; the record id is
+   * added as the last sort field to make the key unique, so the fields should be indexed together
+   * with it. Sort fields must be top-level properties of the entity.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param pageToken a token of a previous page, or null or empty for the first page
+   * @param projection the fields to load, or null for whole entities; sort fields are added
+   * @param sortBy the sort order
+   * @return the page with the tokens of the next and previous pages
+   * @throws BaseException if the page token is malformed or was made for another sort
+   */
+  public KeysetPage<T> listWithFilterByPageToken(
+      Filter filter, String pageToken, Projection projection, Sort... sortBy)
+      throws BaseException {
+    final var keysetSort = getKeysetSort(sortBy);
+    final var sortSignature = getSortSignature(keysetSort);
+    final PageToken token =
+        isEmpty(pageToken) ? null : PageToken.decode(pageToken, sortSignature);
+    final var backward = token != null && token.backward;
+
+    // pages before the token are read in reverse order from the token, then put back in order
+    final var querySort = backward ? reverseSort(keysetSort) : keysetSort;
+    var queryFilter = filter;
+    if (token != null) {
+      final var seekFilter = getSeekFilter(querySort, token.values);
+      queryFilter = filter == null ? seekFilter : Filters.and(filter, seekFilter);
+    }
+
+    final List<T> page =
+        projection == null
+            ? repository.list(queryFilter, 0, pageSize + 1, querySort)
+            : listProjected(
+                queryFilter, withSortFields(projection, keysetSort), 0, pageSize + 1, querySort);
+    final var entities = new ArrayList<>(page);
+    final var hasMore = entities.size() > pageSize;
+    if (hasMore) {
+      entities.remove(pageSize);
+    }
+    if (backward) {
+      Collections.reverse(entities);
+    }
+
+    if (entities.isEmpty()) {
+      return new KeysetPage<>(entities, null, null);
+    }
+
+    final var hasNext = backward || hasMore;
+    final var hasPrevious = backward ? hasMore : token != null;
+    return new KeysetPage<>(
+        entities,
+        hasNext ? getPageToken(entities.get(entities.size() - 1), keysetSort, false) : null,
+        hasPrevious ? getPageToken(entities.get(0), keysetSort, true) : null);
+  }
+
+  private static Projection withSortFields(Projection projection, Sort[] sortBy) {
+    final var fields = new ArrayList<>(projection.getFields());
+    for (var sort : sortBy) {
+      fields.add(sort.getField());
+    }
+    return Projection.of(fields.toArray(String[]::new));
+  }
+
+  private String getPageToken(T entity, Sort[] keysetSort, boolean backward) {
+    final var entityModel =
+        repositoryService.getDatastore().getMapper().getEntityModel(entityClass);
+    final var values = new ArrayList<>(keysetSort.length);
+    for (var sort : keysetSort) {
+      final var property = entityModel.getProperty(sort.getField());
+      if (property == null) {
+        throw new IllegalArgumentException(
+            "Cannot page " + entityClass.getSimpleName() + " by " + sort.getField());
+      }
+      values.add(property.getValue(entity));
+    }
+    return new PageToken(values, backward, getSortSignature(keysetSort)).encode();
+  }
+
+  /**
+   * Streams the entities matching the filter from a server-side cursor, fetching {@code
+   * entity.stream.batch.size} documents per round trip, so only one fetch batch is held in memory
+   * at a time. The stream must be closed, preferably with try-with-resources, to release the
+   * cursor if it is not consumed to the end. Entities are read from the database, not the cache.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param sortBy the sort order
+   * @return the lazy stream of entities
+   */
+  public Stream<T> stream(Filter filter, Sort... sortBy) {
+    return toStream(openCursor(filter, new FindOptions().batchSize(streamBatchSize), sortBy));
+  }
+
+  /**
+   * Streams the projected entities matching the filter, like {@link #stream(Filter, Sort...)}.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param projection the fields to load
+   * @param sortBy the sort order
+   * @return the lazy stream of projected entities
+   */
+  public Stream<T> stream(Filter filter, Projection projection, Sort... sortBy) {
+    final var options = getProjectedOptions(projection).batchSize(streamBatchSize);
+    return toStream(openCursor(filter, options, sortBy)).map(this::markProjected);
+  }
+
+  private static <U> Stream<U> toStream(MorphiaCursor<U> cursor) {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(cursor::close);
+  }
+
+  /**
+   * Walks the entities matching the filter in batches read from a server-side cursor. Each batch
+   * is a new list, so memory is bounded by the batch size as long as the consumer does not keep
+   * the batches. The cursor is closed when the walk ends, including when the consumer throws.
+   *
+   * @param filter the filter, or null for the whole collection
+   * @param batchSize the number of entities per batch, also used as the cursor fetch size
+   * @param consumer the consumer of each batch
+   * @param sortBy the sort order
+   */
+  public void forEachBatch(
+      Filter filter, int batchSize, Consumer<List<T>> consumer, Sort... sortBy) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+
+    try (final var cursor = openCursor(filter, new FindOptions().batchSize(batchSize), sortBy)) {
+      var batch = new ArrayList<T>(batchSize);
+      while (cursor.hasNext()) {
+        batch.add(cursor.next());
+        if (batch.size() == batchSize) {
+          consumer.accept(batch);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+
+      if (!batch.isEmpty()) {
+        consumer.accept(batch);
+      }
+    }
+  }
+
+  private MorphiaCursor<T> openCursor(Filter filter, FindOptions options, Sort... sortBy) {
+    final var query = repositoryService.getDatastore().find(entityClass);
+    if (filter != null) {
+      query.filter(filter);
+    }
+
+    if (sortBy.length > 0) {
+      options.sort(sortBy);
+    }
+    return query.iterator(options);
+  }
+
+  private List<T> listProjected(
+      Filter filter, Projection projection, int skip, int length, Sort... sortBy) {
+    final var options = getProjectedOptions(projection).skip(skip).limit(length);
+    try (final var cursor = openCursor(filter, options, sortBy)) {
+      final var entities = cursor.toList();
+      entities.forEach(this::markProjected);
+      return entities;
+    }
+  }
+
+  private T markProjected(T entity) {
+    projectedEntities.put(entity, Boolean.TRUE);
+    return entity;
+  }
+
+  private FindOptions getProjectedOptions(Projection projection) {
+    final var options = new FindOptions();
+    options.projection().include(getProjectionFields(projection));
+    return options;
+  }
+
+  private String[] getProjectionFields(Projection projection) {
+    return projectionFields.computeIfAbsent(projection, this::validate);
+  }
+
+  /** Checks the fields of a projection against the entity and adds the record id. */
+  private String[] validate(Projection projection) {
+    final var entityModel =
+        repositoryService.getDatastore().getMapper().getEntityModel(entityClass);
+    final var fields = new LinkedHashSet<String>();
+    fields.add(RECORD_ID);
+    for (var field : projection.getFields()) {
+      final var dot = field.indexOf('.');
+      if (entityModel.getProperty(dot < 0 ? field : field.substring(0, dot)) == null) {
+        throw new IllegalArgumentException(
+            "Cannot project " + entityClass.getSimpleName() + " on " + field);
+      }
+      fields.add(field);
+    }
+    return fields.toArray(String[]::new);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <P> View<P> getView(Class<P> viewClass) {
+    return (View<P>) views.computeIfAbsent(viewClass, View::new);
+  }
+
+  private <P> List<P> toViews(List<T> entities, View<P> view) {
+    final var viewInstances = new ArrayList<P>(entities.size());
+    for (var entity : entities) {
+      viewInstances.add(toView(entity, view));
+    }
+    return viewInstances;
+  }
+
+  private <P> P toView(T entity, View<P> view) {
+    final var viewInstance = view.newInstance();
+    getPropertyCopier().copy(entity, viewInstance);
+    return viewInstance;
+  }
+
   public List<T> listHistoryRecords(String id) {
     return repository.listHistoryRecords(id);
   }
@@ -175,7 +791,7 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
   }
 
   public int getNumberOfPages() {
-    return getPagesNumber((int) count(), pageSize);
+    return getPagesNumber(count(), pageSize);
   }
 
   public int getNumberOfPages(int size) {
@@ -183,19 +799,23 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
   }
 
   public int getNumberOfPages(Filter filter) {
-    return getPagesNumber((int) count(filter), pageSize);
+    return getPagesNumber(count(filter), pageSize);
   }
 
   public T save(T entity) throws BaseException {
     validateEntity(entity);
-    return repository.save(entity);
+    final var savedEntity = repository.save(entity);
+    afterWrite(savedEntity);
+    return savedEntity;
   }
 
   public List<T> save(List<T> entities) throws BaseException {
     for (var entity : entities) {
       validateEntity(entity);
     }
-    return repository.save(entities);
+    final var savedEntities = repository.save(entities);
+    savedEntities.forEach(this::afterWrite);
+    return savedEntities;
   }
 
   public T save(String id, S request) throws BaseException {
@@ -210,23 +830,38 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
 
   public T saveWithHistory(T entity) throws BaseException {
     validateEntity(entity);
-    return repository.saveWithHistory(entity);
+    final var savedEntity = repository.saveWithHistory(entity);
+    afterWrite(savedEntity);
+    return savedEntity;
   }
 
   public T saveWithHistory(T entity, String userId) throws BaseException {
     validateEntity(entity);
     entity.setModifiedBy(userId);
-    return repository.saveWithHistory(entity);
+    final var savedEntity = repository.saveWithHistory(entity);
+    afterWrite(savedEntity);
+    return savedEntity;
   }
 
   public List<T> saveWithHistory(List<T> entities) throws BaseException {
     for (var entity : entities) {
       validateEntity(entity);
     }
-    return repository.saveWithHistory(entities);
+    final var savedEntities = repository.saveWithHistory(entities);
+    savedEntities.forEach(this::afterWrite);
+    return savedEntities;
   }
 
   private void validateEntity(T entity) throws BaseException {
+    // saving an entity with fields left out by a projection would clear them
+    if (projectedEntities.getIfPresent(entity) != null) {
+      logger.error(
+          "Cannot save {} {} read with a projection",
+          entityClass.getSimpleName(),
+          entity.getRecordId());
+      throw BaseException.from(ErrorCodes.PARTIAL_ENTITY);
+    }
+
     final var violations = validator.validate(entity);
     if (!violations.isEmpty()) {
       logger.error("{}", violations);
@@ -236,10 +871,13 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
 
   public void delete(T entity) {
     repository.delete(entity);
+    afterWrite(entity);
   }
 
   public long delete(Filter filter) {
-    return repository.deleteWithFilter(filter);
+    final var deleted = repository.deleteWithFilter(filter);
+    afterBulkWrite();
+    return deleted;
   }
 
   public S getRequest(String id) throws BaseException {
@@ -271,26 +909,197 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
       return List.of();
     }
 
-    final var currentState = findById(id);
-    final var historyStates = listHistoryRecords(id);
+    final var states = new ArrayList<T>();
+    states.add(findById(id, HISTORY_PROJECTION));
+    states.addAll(listHistoryRecords(id));
+    return toHistoryEntries(states);
+  }
+
+  /**
+   * Returns a page of the history of an entity, newest first. The first page, requested without
+   * a token, starts with the current state; following pages are requested with the next page
+   * token of the previous one. History records are ordered by modification time and then by id,
+   * so records saved within the same millisecond are neither skipped nor repeated.
+   *
+   * <p>Pages are read from the history collection, sorted and limited by the database and with
+   * only the modification fields loaded. Until that collection is known, see {@link
+   * #getHistoryCollectionName()}, pages are cut from the history records listed by the
+   * repository.
+   *
+   * @param id the record id
+   * @param pageToken the next page token of the previous page, or null or empty for the first page
+   * @return the page of history entries, with the token of the next page only
+   * @throws BaseException if the entity does not exist or the page token is malformed
+   */
+  public KeysetPage<HistoryEntry> getHistoryEntries(String id, String pageToken)
+      throws BaseException {
+    if (isEmpty(id)) {
+      return new KeysetPage<>(List.of(), null, null);
+    }
+
+    final PageToken token =
+        isEmpty(pageToken) ? null : PageToken.decode(pageToken, getSortSignature(HISTORY_SORT));
+    final var states = new ArrayList<T>(pageSize + 1);
+    if (token == null) {
+      states.add(findById(id, HISTORY_PROJECTION));
+    }
+
+    // one more record than the page tells whether there is a next page
+    final List<Object> after = token == null ? List.of() : token.values;
+    states.addAll(listHistoryPage(id, after, pageSize + 1 - states.size()));
+    final var hasMore = states.size() > pageSize;
+    if (hasMore) {
+      states.remove(pageSize);
+    }
+
+    String nextPageToken = null;
+    if (hasMore) {
+      // a page ending at the current state continues with the newest history record
+      final var endsAtCurrentState = token == null && states.size() == 1;
+      final var values =
+          endsAtCurrentState ? List.of() : getHistoryKey(states.get(states.size() - 1));
+      nextPageToken = new PageToken(values, false, getSortSignature(HISTORY_SORT)).encode();
+    }
+    return new KeysetPage<>(toHistoryEntries(states), nextPageToken, null);
+  }
+
+  /**
+   * Returns the name of the collection holding the history records of the entities, or null to
+   * look it up. Override it to skip the lookup; the collection should be indexed on {@code
+   * (recordId, modifiedAt, _id)}.
+   *
+   * @return the history collection name, or null
+   */
+  protected String getHistoryCollectionName() {
+    return null;
+  }
+
+  /** Lists the history records that come after the given history key, newest first. */
+  private List<T> listHistoryPage(String id, List<Object> after, int length) {
+    final var historyCollection = findHistoryCollection(id);
+    if (historyCollection == null) {
+      return listHistoryPageFromRepository(id, after, length);
+    }
+
+    var filter = Filters.eq(RECORD_ID, id);
+    if (!after.isEmpty()) {
+      filter = Filters.and(filter, getSeekFilter(HISTORY_SORT, after));
+    }
+    final var options =
+        getProjectedOptions(HISTORY_PROJECTION).collection(historyCollection).limit(length);
+    try (final var cursor = openCursor(filter, options, HISTORY_SORT)) {
+      return cursor.toList();
+    }
+  }
+
+  /**
+   * Finds the collection the repository keeps the history records in. The repository does not
+   * expose it, so it is looked for among the collections named after the entity collection, and
+   * taken once it holds as many records of an entity as the repository lists. Until an entity
+   * with history is read the collection stays unknown, which costs nothing as there is nothing to
+   * page.
+   */
+  private String findHistoryCollection(String id) {
+    final var overriddenName = getHistoryCollectionName();
+    if (overriddenName != null) {
+      return overriddenName;
+    }
+    if (historyCollectionName != null) {
+      return NO_HISTORY_COLLECTION.equals(historyCollectionName) ? null : historyCollectionName;
+    }
 
-    final var userIdSet =
-        historyStates.stream().map(BaseEntity::getModifiedBy).collect(Collectors.toSet());
-    userIdSet.add(currentState.getModifiedBy());
+    final var historyRecords = listHistoryRecords(id).size();
+    if (historyRecords == 0) {
+      return null;
+    }
 
-    final var users =
-        userRepository.listWithFilter(Filters.in(RECORD_ID, userIdSet)).stream()
-            .collect(Collectors.toMap(User::getRecordId, User::getUserName));
+    final var database = repositoryService.getDatastore().getDatabase();
+    final var recordFilter = toFilterDocument(Filters.eq(RECORD_ID, id));
+    final var prefix = collectionName.toLowerCase(Locale.ROOT);
+    for (var name : database.listCollectionNames()) {
+      if (!name.equals(collectionName)
+          && name.toLowerCase(Locale.ROOT).startsWith(prefix)
+          && database.getCollection(name).countDocuments(recordFilter) == historyRecords) {
+        logger.info("Reading {} history from collection {}", collectionName, name);
+        historyCollectionName = name;
+        return name;
+      }
+    }
 
-    final var historyEntries = new ArrayList<HistoryEntry>();
+    logger.warn(
+        "No history collection found for {}, history pages are cut from whole records",
+        collectionName);
+    historyCollectionName = NO_HISTORY_COLLECTION;
+    return null;
+  }
 
-    historyEntries.add(getHistoryEntry(users, currentState));
-    historyStates.forEach(
-        historyEntity -> historyEntries.add(getHistoryEntry(users, historyEntity)));
+  private List<T> listHistoryPageFromRepository(String id, List<Object> after, int length) {
+    final var records = new ArrayList<>(listHistoryRecords(id));
+    // stable, so records with equal times keep the order the repository lists them in
+    records.sort(
+        Comparator.comparing(
+            BaseEntity::getModifiedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+
+    var start = 0;
+    if (!after.isEmpty()) {
+      // continue after the last record seen, or after its time if it is gone
+      start = records.size();
+      for (var i = records.size() - 1; i >= 0; i--) {
+        final var key = getHistoryKey(records.get(i));
+        if (Objects.equals(key.get(1), after.get(1))) {
+          start = i + 1;
+          break;
+        }
+        if (after.get(0) instanceof Long before
+            && key.get(0) instanceof Long modifiedAt
+            && modifiedAt < before) {
+          start = i;
+        }
+      }
+    }
+    return records.subList(start, Math.min(records.size(), start + length));
+  }
+
+  private List<Object> getHistoryKey(T state) {
+    final var idProperty =
+        repositoryService.getDatastore().getMapper().getEntityModel(entityClass).getIdProperty();
+    return Arrays.asList(state.getModifiedAt(), idProperty.getValue(state));
+  }
 
+  /** Resolves the user names of the states in one lookup and maps them to history entries. */
+  private List<HistoryEntry> toHistoryEntries(List<T> states) {
+    final var userIds = new HashSet<String>();
+    for (var state : states) {
+      if (state.getModifiedBy() != null) {
+        userIds.add(state.getModifiedBy());
+      }
+    }
+    final var users = getUserNames(userIds);
+
+    final var historyEntries = new ArrayList<HistoryEntry>(states.size());
+    states.forEach(state -> historyEntries.add(getHistoryEntry(users, state)));
     return historyEntries;
   }
 
+  private Map<String, String> getUserNames(Collection<String> userIds) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+
+    final var options = new FindOptions();
+    options.projection().include(RECORD_ID, USER_NAME);
+    final var users = new HashMap<String, String>();
+    try (final var cursor =
+        repositoryService
+            .getDatastore()
+            .find(User.class)
+            .filter(Filters.in(RECORD_ID, userIds))
+            .iterator(options)) {
+      cursor.forEachRemaining(user -> users.put(user.getRecordId(), user.getUserName()));
+    }
+    return users;
+  }
+
   @NotNull
   public static <V extends BaseEntity> Map<String, V> mapIdToBaseEntity(List<V> entities) {
     return entities.stream()
@@ -311,19 +1120,125 @@ public abstract class EntityService<T extends BaseEntity, S extends BaseRequest>
   }
 
   public void setEntityFromRequest(T entity, S request) throws BaseException {
-    BeanUtils.copyProperties(request, entity);
+    getPropertyCopier().copy(request, entity);
   }
 
   public void setRequestFromEntity(S request, T entity) throws BaseException {
-    BeanUtils.copyProperties(entity, request);
+    getPropertyCopier().copy(entity, request);
+  }
+
+  /**
+   * Returns the copier used between requests and entities. Override to register converters for
+   * properties whose types differ between the request and the entity.
+   *
+   * @return the property copier
+   */
+  protected PropertyCopier getPropertyCopier() {
+    return PropertyCopier.getDefault();
   }
 
   public void emptyCollection() {
     repository.emptyCollection();
+    afterBulkWrite();
   }
 
   protected void processAfterSave(T entity, String userId) throws BaseException {}
 
+  private void afterWrite(T entity) {
+    evictFromCache(entity);
+    processAfterWrite(entity);
+  }
+
+  /**
+   * Evicts an entity from the read-through cache of this node and, through the {@link
+   * InvalidationBus}, of the other nodes. Only needed by subclasses that write through {@link
+   * #getRepository()} directly; the write methods of this service evict on their own.
+   *
+   * @param entity the written entity
+   */
+  protected void evictFromCache(T entity) {
+    evictLocally(entity.getRecordId());
+    if (invalidationBus != null && isCached()) {
+      invalidationBus.publish(collectionName, entity.getRecordId());
+    }
+  }
+
+  private void afterBulkWrite() {
+    evictLocally(null);
+    if (invalidationBus != null && isCached()) {
+      invalidationBus.publish(collectionName, null);
+    }
+    processAfterBulkWrite();
+  }
+
+  /**
+   * Returns whether other nodes cache entities of this service, so that writes have to be
+   * published to them. True when the entity cache is enabled; subclasses keeping caches of their
+   * own, refreshed in {@link #processAfterRemoteWrite}, return true as well.
+   *
+   * @return true if writes are published on the {@link InvalidationBus}
+   */
+  protected boolean isCached() {
+    return entityCache != null;
+  }
+
+  private void afterRemoteWrite(String recordId) {
+    evictLocally(recordId);
+    processAfterRemoteWrite(recordId);
+  }
+
+  private void evictLocally(String recordId) {
+    if (entityCache == null) {
+      return;
+    }
+
+    if (recordId == null) {
+      entityCache.invalidateAll();
+    } else {
+      entityCache.invalidate(recordId);
+    }
+    // a write may change the field values entities were looked up by
+    fieldCache.invalidateAll();
+  }
+
+  /** Called after every write of a single entity through this service, including deletes. */
+  protected void processAfterWrite(T entity) {}
+
+  /** Called after writes through this service that may affect any entity of the collection. */
+  protected void processAfterBulkWrite() {}
+
+  /**
+   * Called when another node wrote an entity of the collection, from an invalidation bus thread.
+   *
+   * @param recordId the written record id, or null if any entity may have changed
+   */
+  protected void processAfterRemoteWrite(String recordId) {}
+
+  /** A view class with the projection of its properties and its constructor. */
+  private static final class View<P> {
+
+    private final Projection projection;
+    private final Constructor<P> constructor;
+
+    private View(Class<P> viewClass) {
+      this.projection = Projection.of(viewClass);
+      try {
+        this.constructor = viewClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalArgumentException(viewClass.getName() + " has no no-arg constructor", e);
+      }
+    }
+
+    private P newInstance() {
+      try {
+        return constructor.newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Could not create " + constructor.getName(), e);
+      }
+    }
+  }
+
   public abstract T getNewEntity();
 
   public abstract S getNewRequest();
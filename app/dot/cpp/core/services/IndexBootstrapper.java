@@ -0,0 +1,209 @@
+package dot.cpp.core.services;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.typesafe.config.Config;
+import dot.cpp.core.annotations.EntityIndex;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.Environment;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Creates the indexes declared with {@link EntityIndex} on the entities listed in {@code
+ * indexes.entities}. Missing indexes are created; indexes whose options differ from the
+ * declaration, and indexes that are not declared at all, are only logged. If the database is not
+ * initialized at startup, the bootstrap is retried every {@code indexes.bootstrap.retry.interval}
+ * until it is.
+ */
+@Singleton
+public class IndexBootstrapper {
+
+  private static final String ID_INDEX = "_id_";
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final RepositoryService repositoryService;
+  private final List<Class<?>> entityClasses = new ArrayList<>();
+
+  @Inject
+  public IndexBootstrapper(
+      RepositoryService repositoryService,
+      Config config,
+      Environment environment,
+      ApplicationLifecycle lifecycle) {
+    this.repositoryService = repositoryService;
+
+    for (var className : config.getStringList("indexes.entities")) {
+      try {
+        entityClasses.add(Class.forName(className, false, environment.classLoader()));
+      } catch (ClassNotFoundException e) {
+        logger.error("Entity class {} for index bootstrap not found", className);
+      }
+    }
+
+    if (config.getBoolean("indexes.bootstrap.enabled") && !ensureIndexes()) {
+      logger.warn("Database not initialized, retrying index bootstrap later");
+      scheduleRetries(config.getDuration("indexes.bootstrap.retry.interval").toMillis(), lifecycle);
+    }
+  }
+
+  /**
+   * Creates the missing indexes of every configured entity.
+   *
+   * @return false if the database is not initialized yet and nothing was done
+   */
+  public boolean ensureIndexes() {
+    if (!repositoryService.isDatabaseInitialized()) {
+      return false;
+    }
+
+    entityClasses.forEach(this::ensureIndexes);
+    return true;
+  }
+
+  /**
+   * Creates the missing indexes of an entity and logs any drift from its declared indexes.
+   *
+   * @param entityClass the entity class annotated with {@link EntityIndex}
+   */
+  public void ensureIndexes(Class<?> entityClass) {
+    final var collection = repositoryService.getDatastore().getCollection(entityClass);
+    final var collectionName = collection.getNamespace().getCollectionName();
+    final var existingIndexes = collection.listIndexes().into(new ArrayList<>());
+    final var declaredKeys = new ArrayList<String>();
+
+    for (var declaredIndex : entityClass.getAnnotationsByType(EntityIndex.class)) {
+      final var keys = getDeclaredKeys(declaredIndex);
+      final var keySignature = getKeySignature(keys);
+      declaredKeys.add(keySignature);
+
+      final var existingIndex =
+          existingIndexes.stream()
+              .filter(index -> keySignature.equals(getKeySignature(getIndexKeys(index))))
+              .findFirst()
+              .orElse(null);
+
+      if (existingIndex == null) {
+        createIndex(collection, collectionName, keys, declaredIndex);
+      } else if (!hasOptions(existingIndex, declaredIndex)) {
+        logger.warn(
+            "Index {} on {} differs from its declaration: unique {}, sparse {}, ttl {}",
+            existingIndex.getString("name"),
+            collectionName,
+            declaredIndex.unique(),
+            declaredIndex.sparse(),
+            declaredIndex.expireAfterSeconds());
+      }
+    }
+
+    existingIndexes.stream()
+        .filter(index -> !ID_INDEX.equals(index.getString("name")))
+        .filter(index -> !declaredKeys.contains(getKeySignature(getIndexKeys(index))))
+        .forEach(
+            index ->
+                logger.info(
+                    "Index {} on {} is not declared on {}",
+                    index.getString("name"),
+                    collectionName,
+                    entityClass.getSimpleName()));
+  }
+
+  private void scheduleRetries(long interval, ApplicationLifecycle lifecycle) {
+    final var scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final var thread = new Thread(runnable, "index-bootstrap");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(
+        () -> retryEnsureIndexes(scheduler), interval, interval, TimeUnit.MILLISECONDS);
+
+    lifecycle.addStopHook(
+        () -> {
+          scheduler.shutdown();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  private void retryEnsureIndexes(ScheduledExecutorService scheduler) {
+    try {
+      if (ensureIndexes()) {
+        logger.info("Index bootstrap completed after the database was initialized");
+        scheduler.shutdown();
+      }
+    } catch (RuntimeException e) {
+      logger.error("Index bootstrap failed, retrying later", e);
+    }
+  }
+
+  private void createIndex(
+      MongoCollection<?> collection,
+      String collectionName,
+      Document keys,
+      EntityIndex declaredIndex) {
+    final var options =
+        new IndexOptions().unique(declaredIndex.unique()).sparse(declaredIndex.sparse());
+    if (declaredIndex.expireAfterSeconds() >= 0L) {
+      options.expireAfter(declaredIndex.expireAfterSeconds(), TimeUnit.SECONDS);
+    }
+
+    try {
+      final var name = collection.createIndex(keys, options);
+      logger.info("Created index {} on {}", name, collectionName);
+    } catch (MongoException e) {
+      logger.error("Could not create index {} on {}", keys.toJson(), collectionName, e);
+    }
+  }
+
+  private static boolean hasOptions(Document existingIndex, EntityIndex declaredIndex) {
+    final var expireAfterSeconds = existingIndex.get("expireAfterSeconds");
+    final var existingTtl =
+        expireAfterSeconds instanceof Number ? ((Number) expireAfterSeconds).longValue() : -1L;
+
+    return existingIndex.getBoolean("unique", false) == declaredIndex.unique()
+        && existingIndex.getBoolean("sparse", false) == declaredIndex.sparse()
+        && existingTtl == declaredIndex.expireAfterSeconds();
+  }
+
+  private static Document getDeclaredKeys(EntityIndex declaredIndex) {
+    final var keys = new Document();
+    for (var field : declaredIndex.fields()) {
+      if (field.startsWith("-")) {
+        keys.append(field.substring(1), -1);
+      } else {
+        keys.append(field, 1);
+      }
+    }
+    return keys;
+  }
+
+  private static Document getIndexKeys(Document existingIndex) {
+    return existingIndex.get("key", Document.class);
+  }
+
+  private static String getKeySignature(Document keys) {
+    return keys.entrySet().stream()
+        .map(key -> key.getKey() + "_" + getDirection(key))
+        .collect(Collectors.joining(","));
+  }
+
+  private static String getDirection(Map.Entry<String, Object> key) {
+    return key.getValue() instanceof Number
+        ? String.valueOf(((Number) key.getValue()).intValue())
+        : String.valueOf(key.getValue());
+  }
+}
@@ -0,0 +1,129 @@
+package dot.cpp.core.services;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import java.io.File;
+import java.security.Key;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.crypto.SecretKey;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HS512 signing keys shared by every node. Keys are read from {@code jwt.keys} or from the HOCON
+ * file at {@code jwt.key.file}; tokens are signed with the active key and carry its id in the
+ * {@code kid} header, and any key in the ring validates the tokens it signed.
+ *
+ * <p>To rotate, add the new key to every node, then make it active, then remove the old key once
+ * the tokens it signed have expired.
+ */
+@Singleton
+public class JwtKeyRing {
+
+  private static final int MIN_KEY_BYTES = 64;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final Map<String, SecretKey> keys = new LinkedHashMap<>();
+  private final String activeKeyId;
+  private final JwtParser parser;
+
+  @Inject
+  public JwtKeyRing(Config config) {
+    final var keyConfig = getKeyConfig(config);
+    keyConfig
+        .getConfigList("keys")
+        .forEach(key -> keys.put(key.getString("id"), getSecretKey(key)));
+
+    if (keys.isEmpty()) {
+      logger.warn("No JWT keys configured, tokens will not be valid on other nodes or restarts");
+      keys.put(UUID.randomUUID().toString(), Keys.secretKeyFor(SignatureAlgorithm.HS512));
+    }
+
+    final var configuredActiveKeyId = keyConfig.getString("active");
+    activeKeyId =
+        configuredActiveKeyId.isEmpty()
+            ? keys.keySet().stream().reduce((first, second) -> second).orElseThrow()
+            : configuredActiveKeyId;
+
+    if (!keys.containsKey(activeKeyId)) {
+      throw new ConfigException.BadValue("jwt.active", "Unknown JWT key id " + activeKeyId);
+    }
+
+    parser = Jwts.parserBuilder().setSigningKeyResolver(new KeyResolver()).build();
+  }
+
+  /**
+   * Signs the token with the active key.
+   *
+   * @param builder the token builder
+   * @return the builder, signed and carrying the active key id
+   */
+  public JwtBuilder sign(JwtBuilder builder) {
+    return builder.setHeaderParam(JwsHeader.KEY_ID, activeKeyId).signWith(keys.get(activeKeyId));
+  }
+
+  /**
+   * Verifies the token signature with the key named by its {@code kid} header and parses it.
+   *
+   * @param jwtToken the signed token
+   * @return the parsed claims
+   */
+  public Jws<Claims> parse(String jwtToken) {
+    return parser.parseClaimsJws(jwtToken);
+  }
+
+  public String getActiveKeyId() {
+    return activeKeyId;
+  }
+
+  private static Config getKeyConfig(Config config) {
+    final var keyFile = config.getString("jwt.key.file");
+    final var jwtConfig = config.getConfig("jwt");
+
+    return keyFile.isEmpty()
+        ? jwtConfig
+        : ConfigFactory.parseFile(new File(keyFile)).withFallback(jwtConfig).resolve();
+  }
+
+  private static SecretKey getSecretKey(Config key) {
+    final var secret = Decoders.BASE64.decode(key.getString("secret"));
+
+    if (secret.length < MIN_KEY_BYTES) {
+      throw new ConfigException.BadValue(
+          "jwt.keys", "JWT key " + key.getString("id") + " must have at least 64 bytes");
+    }
+
+    return Keys.hmacShaKeyFor(secret);
+  }
+
+  private class KeyResolver extends SigningKeyResolverAdapter {
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+      final var keyId = header.getKeyId();
+      final SecretKey key = keyId == null ? null : keys.get(keyId);
+
+      if (key == null) {
+        throw new SignatureException("Unknown JWT key id " + keyId);
+      }
+
+      return key;
+    }
+  }
+}
@@ -3,29 +3,39 @@ package dot.cpp.core.services;
 import static dot.cpp.core.constants.Constants.USER_ROLE;
 import static dot.cpp.core.helpers.ValidationHelper.isEmpty;
 
+import com.typesafe.config.Config;
+import dot.cpp.core.cache.RefreshGraceCache;
+import dot.cpp.core.cache.UserSnapshotCache;
+import dot.cpp.core.cache.VerifiedTokenCache;
 import dot.cpp.core.enums.ErrorCodes;
 import dot.cpp.core.enums.UserRole;
 import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.metrics.AuthMetrics;
 import dot.cpp.core.models.AuthTokens;
+import dot.cpp.core.models.Principal;
+import dot.cpp.core.models.UserSnapshot;
+import dot.cpp.core.models.VerifiedToken;
 import dot.cpp.core.models.session.entity.Session;
-import dot.cpp.core.models.session.repository.SessionRepository;
+import dot.cpp.core.models.session.store.SessionStore;
+import dot.cpp.core.models.user.entity.User;
 import dot.cpp.core.models.user.repository.UserRepository;
+import dot.cpp.core.utils.RateLimiter;
+import dot.cpp.core.utils.SingleFlight;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
-import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.locks.ReentrantLock;
-import javax.crypto.SecretKey;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import play.Environment;
+import play.libs.concurrent.ClassLoaderExecutionContext;
 import play.mvc.Http;
 
 @Singleton
@@ -33,28 +43,66 @@ public class LoginService {
 
   public static final long REFRESH_TIME = 86400000L; // one day in milliseconds
   public static final long ACCESS_TIME = 1800000L; // 30 minutes in milliseconds
+  public static final long REFRESH_GRACE_TIME = 10000L; // 10 seconds in milliseconds
 
   public final UserService userService;
-  private final SecretKey key;
   private final Logger logger = LoggerFactory.getLogger(getClass());
-  private final ReentrantLock[] locks = new ReentrantLock[10];
+  private final SingleFlight<String, AuthTokens> refreshFlight = new SingleFlight<>();
   private final UserRepository userRepository;
-  private final SessionRepository sessionRepository;
+  private final SessionStore sessionStore;
   private final Environment environment;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final JwtKeyRing keyRing;
+  private final UserSnapshotCache userSnapshotCache;
+  private final TokenRevocationService revocationService;
+  private final AuthMetrics metrics;
+  private final RefreshGraceCache refreshGraceCache;
+  private final ClassLoaderExecutionContext executionContext;
+  private final int maxSessionsPerUser;
+  private final boolean throttleEnabled;
+  private final RateLimiter<String> userNameLimiter;
+  private final RateLimiter<String> clientIpLimiter;
 
   @Inject
   public LoginService(
       UserService userService,
       UserRepository userRepository,
-      SessionRepository sessionRepository,
-      Environment environment) {
+      SessionStore sessionStore,
+      Environment environment,
+      VerifiedTokenCache verifiedTokenCache,
+      JwtKeyRing keyRing,
+      UserSnapshotCache userSnapshotCache,
+      TokenRevocationService revocationService,
+      AuthMetrics metrics,
+      RefreshGraceCache refreshGraceCache,
+      ClassLoaderExecutionContext executionContext,
+      Config config) {
     this.userService = userService;
     this.userRepository = userRepository;
-    this.sessionRepository = sessionRepository;
+    this.sessionStore = sessionStore;
     this.environment = environment;
-
-    Arrays.setAll(locks, index -> new ReentrantLock());
-    key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.keyRing = keyRing;
+    this.userSnapshotCache = userSnapshotCache;
+    this.revocationService = revocationService;
+    this.metrics = metrics;
+    this.refreshGraceCache = refreshGraceCache;
+    this.executionContext = executionContext;
+    metrics.registerRefreshFlight(refreshFlight);
+    this.maxSessionsPerUser = config.getInt("session.max.per.user");
+
+    final var maxKeys = config.getLong("auth.login.throttle.max.keys");
+    this.throttleEnabled = config.getBoolean("auth.login.throttle.enabled");
+    this.userNameLimiter =
+        new RateLimiter<>(
+            config.getInt("auth.login.throttle.user.capacity"),
+            config.getDuration("auth.login.throttle.user.refill.interval"),
+            maxKeys);
+    this.clientIpLimiter =
+        new RateLimiter<>(
+            config.getInt("auth.login.throttle.ip.capacity"),
+            config.getDuration("auth.login.throttle.ip.refill.interval"),
+            maxKeys);
   }
 
   /**
@@ -68,36 +116,124 @@ public class LoginService {
    */
   public AuthTokens login(Http.Request request, String username, String password)
       throws LoginException {
-    final var clientIp = getClientIp(request);
-    final var user = userRepository.findByField("userName", username);
+    try {
+      final var clientIp = getClientIp(request);
+      throttleLogin(clientIp, username);
+      final var user = findLoginUser(username);
+
+      final var authTokens =
+          createSession(user, clientIp, userService.passwordIsValid(user, password));
+      metrics.loginSucceeded();
+      return authTokens;
+    } catch (LoginException e) {
+      metrics.loginFailed(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Login user without blocking the calling thread on password hashing, which runs on the {@link
+   * PasswordHashingExecutor}. The session is then created on Play's default execution context.
+   *
+   * @param request the HTTP request
+   * @param username the username of the user
+   * @param password the password of the user
+   * @return a stage completed with the access and refresh tokens, or failed with a {@link
+   *     LoginException} if the login is unsuccessful
+   */
+  public CompletionStage<AuthTokens> loginAsync(
+      Http.Request request, String username, String password) {
+    final String clientIp;
+    final User user;
+
+    try {
+      clientIp = getClientIp(request);
+      throttleLogin(clientIp, username);
+      user = findLoginUser(username);
+    } catch (LoginException e) {
+      metrics.loginFailed(e);
+      return CompletableFuture.failedFuture(e);
+    }
+
+    return userService
+        .passwordIsValidAsync(user, password)
+        .thenApplyAsync(
+            passwordIsValid -> {
+              try {
+                return createSession(user, clientIp, passwordIsValid);
+              } catch (LoginException e) {
+                throw new CompletionException(e);
+              }
+            },
+            executionContext.current())
+        .whenComplete(
+            (authTokens, throwable) -> {
+              if (throwable == null) {
+                metrics.loginSucceeded();
+              } else if (throwable.getCause() instanceof LoginException e) {
+                metrics.loginFailed(e);
+              } else if (throwable instanceof LoginException e) {
+                metrics.loginFailed(e);
+              }
+            });
+  }
+
+  private void throttleLogin(String clientIp, String username) throws LoginException {
+    if (!throttleEnabled) {
+      return;
+    }
+
+    // checked before the user lookup, so rejected attempts cost neither a query nor a hash
+    if (!clientIpLimiter.tryAcquire(clientIp)) {
+      logger.debug("Too many login attempts from {}", clientIp);
+      throw LoginException.from(ErrorCodes.TOO_MANY_LOGIN_ATTEMPTS);
+    }
+
+    if (username != null && !userNameLimiter.tryAcquire(username)) {
+      logger.debug("Too many login attempts for username {}", username);
+      throw LoginException.from(ErrorCodes.TOO_MANY_LOGIN_ATTEMPTS);
+    }
+  }
+
+  private User findLoginUser(String username) throws LoginException {
+    final var user = userRepository.findByField(UserService.USER_NAME, username);
 
     if (user == null) {
       logger.debug("Username not found {}", username);
       throw LoginException.from(ErrorCodes.USER_NOT_FOUND);
-    } else {
-      if (!userService.passwordIsValid(user.getPassword(), password)) {
-        logger.debug("Wrong password for username {}", username);
-        throw LoginException.from(ErrorCodes.INCORRECT_PASSWORD);
-      }
+    }
 
-      if (!user.isActive()) {
-        logger.debug("Inactive user account {}", username);
-        throw LoginException.from(ErrorCodes.USER_INACTIVE_ACCOUNT);
-      }
+    return user;
+  }
 
-      final var expirationDateRefresh = new Date();
-      expirationDateRefresh.setTime(expirationDateRefresh.getTime() + REFRESH_TIME);
+  private AuthTokens createSession(User user, String clientIp, boolean passwordIsValid)
+      throws LoginException {
+    if (!passwordIsValid) {
+      logger.debug("Wrong password for username {}", user.getUserName());
+      throw LoginException.from(ErrorCodes.INCORRECT_PASSWORD);
+    }
 
-      final var session = new Session();
-      final var refreshToken = UUID.randomUUID().toString();
-      session.setRefreshToken(refreshToken);
-      session.setRefreshExpiryTime(expirationDateRefresh.getTime());
-      session.setUserId(user.getRecordId());
-      session.setClientIp(clientIp);
-      sessionRepository.save(session);
+    if (!user.isActive()) {
+      logger.debug("Inactive user account {}", user.getUserName());
+      throw LoginException.from(ErrorCodes.USER_INACTIVE_ACCOUNT);
+    }
 
-      return getAuthTokens(session, user.getRole());
+    final var expirationDateRefresh = new Date();
+    expirationDateRefresh.setTime(expirationDateRefresh.getTime() + REFRESH_TIME);
+
+    final var session = new Session();
+    final var refreshToken = UUID.randomUUID().toString();
+    session.setRefreshToken(refreshToken);
+    session.setRefreshExpiryTime(expirationDateRefresh.getTime());
+    session.setUserId(user.getRecordId());
+    session.setClientIp(clientIp);
+    final var savedSession = sessionStore.save(session);
+
+    if (maxSessionsPerUser > 0) {
+      sessionStore.trimUserSessions(user.getRecordId(), maxSessionsPerUser);
     }
+
+    return getAuthTokens(savedSession, user.getRole());
   }
 
   public String getClientIp(Http.Request request) throws LoginException {
@@ -119,21 +255,30 @@ public class LoginService {
     return clientIp;
   }
 
+  /**
+   * Issues an access token for a user, signed with the active key of the {@link JwtKeyRing}.
+   *
+   * @param userId the user ID
+   * @param userRole the role of the user
+   * @return the compact JWT access token
+   */
   private String getAccessToken(String userId, UserRole userRole) {
-    final var expirationDateAccess = new Date();
-    expirationDateAccess.setTime(expirationDateAccess.getTime() + ACCESS_TIME);
-
-    return Jwts.builder()
-        .setSubject(userId)
-        .setExpiration(expirationDateAccess)
-        .signWith(key)
+    final var issueDate = new Date();
+    final var expirationDateAccess = new Date(issueDate.getTime() + ACCESS_TIME);
+
+    return keyRing
+        .sign(
+            Jwts.builder()
+                .setSubject(userId)
+                .setIssuedAt(issueDate)
+                .setExpiration(expirationDateAccess))
         .claim(USER_ROLE, userRole)
         .compact();
   }
 
   private Jws<Claims> getJwsClaims(String jwtToken) throws LoginException {
     try {
-      return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwtToken);
+      return keyRing.parse(jwtToken);
     } catch (Exception e) {
       // ! Arc Browser sends another redundant request without cookies which gets logged - IGNORE
       logger.debug("JWT error {}", e.getMessage());
@@ -143,33 +288,120 @@ public class LoginService {
 
   /**
    * Authorizes a request using a JWT access token. Verifies token validity and expiration, and
-   * user's role.
+   * user's role. Tokens that were already verified are served from the {@link VerifiedTokenCache}
+   * without checking the signature again.
    *
    * @param accessToken the JWT access token
-   * @param permittedUserRoles a list of authorized user roles; if it's empty, all users are allowed
+   * @param permittedUserRoles the authorized user roles; if empty, all users are allowed
    * @return the user ID associated with the validated JWT access token
    * @throws LoginException If the access token is invalid or expired, or if the user's role does
    *     not match the permitted roles, a LoginException is thrown.
    */
-  public String authorizeRequest(String accessToken, List<UserRole> permittedUserRoles)
+  public String authorizeRequest(String accessToken, Collection<UserRole> permittedUserRoles)
       throws LoginException {
-    final var claims = getJwsClaims(accessToken).getBody();
-    final var expirationDate = claims.getExpiration();
+    return authorize(accessToken, permittedUserRoles).userId;
+  }
 
-    if (expirationDate.before(new Date())) {
+  /**
+   * Same as {@link #authorizeRequest(String, Collection)}, but returns the verified token claims.
+   *
+   * @param accessToken the JWT access token
+   * @param permittedUserRoles the authorized user roles; if empty, all users are allowed
+   * @return the {@link VerifiedToken} holding the user ID, role and expiry
+   * @throws LoginException if the token is invalid or expired, or the role is not permitted
+   */
+  public VerifiedToken authorize(String accessToken, Collection<UserRole> permittedUserRoles)
+      throws LoginException {
+    final var start = System.nanoTime();
+    try {
+      return checkAccessToken(accessToken, permittedUserRoles);
+    } finally {
+      metrics.getAuthorizeLatency().observeSince(start);
+    }
+  }
+
+  private VerifiedToken checkAccessToken(
+      String accessToken, Collection<UserRole> permittedUserRoles) throws LoginException {
+    final var verifiedToken = getVerifiedToken(accessToken);
+
+    if (verifiedToken.isExpired(System.currentTimeMillis())) {
       throw LoginException.from(ErrorCodes.EXPIRED_ACCESS);
     }
 
-    final var userRole = claims.get(USER_ROLE, String.class);
-    if (!permittedUserRoles.isEmpty() && !permittedUserRoles.contains(UserRole.valueOf(userRole))) {
+    if (revocationService.isRevoked(verifiedToken.userId, verifiedToken.issuedAt)) {
+      throw LoginException.from(ErrorCodes.TOKEN_REVOKED);
+    }
+
+    if (!permittedUserRoles.isEmpty() && !permittedUserRoles.contains(verifiedToken.userRole)) {
       throw LoginException.from(ErrorCodes.USER_ROLE_MISMATCH);
     }
 
-    return claims.getSubject(); // userId
+    return verifiedToken;
+  }
+
+  /**
+   * Builds the principal of an authorized request from the token claims and the cached user
+   * snapshot. The snapshot is loaded from the database on a cache miss.
+   *
+   * @param verifiedToken the verified access token
+   * @return the {@link Principal}
+   * @throws LoginException with {@code USER_NOT_FOUND} or {@code USER_INACTIVE_ACCOUNT} if the
+   *     user no longer exists or is inactive, or with {@code GENERAL_ERROR} if the user could not
+   *     be loaded, which does not invalidate the session
+   */
+  public Principal getPrincipal(VerifiedToken verifiedToken) throws LoginException {
+    final UserSnapshot userSnapshot;
+    try {
+      userSnapshot = userSnapshotCache.get(verifiedToken.userId);
+    } catch (RuntimeException e) {
+      logger.error("Could not load user {}", verifiedToken.userId, e);
+      throw LoginException.from(ErrorCodes.GENERAL_ERROR);
+    }
+
+    if (userSnapshot == UserSnapshot.MISSING) {
+      logger.error("User not found {}", verifiedToken.userId);
+      throw LoginException.from(ErrorCodes.USER_NOT_FOUND);
+    }
+
+    if (!userSnapshot.active) {
+      logger.debug("Inactive user account {}", userSnapshot.userName);
+      throw LoginException.from(ErrorCodes.USER_INACTIVE_ACCOUNT);
+    }
+
+    return new Principal(
+        verifiedToken.userId,
+        verifiedToken.userRole,
+        userSnapshot.userName,
+        userSnapshot.groups);
+  }
+
+  private VerifiedToken getVerifiedToken(String accessToken) throws LoginException {
+    if (isEmpty(accessToken)) {
+      throw LoginException.from(ErrorCodes.INVALID_JWT);
+    }
+
+    final var cachedToken = verifiedTokenCache.get(accessToken);
+    if (cachedToken != null) {
+      return cachedToken;
+    }
+
+    final var claims = getJwsClaims(accessToken).getBody();
+    final var issuedAt = claims.getIssuedAt();
+    final var verifiedToken =
+        new VerifiedToken(
+            claims.getSubject(),
+            UserRole.valueOf(claims.get(USER_ROLE, String.class)),
+            issuedAt == null ? 0L : issuedAt.getTime(),
+            claims.getExpiration().getTime());
+    verifiedTokenCache.put(accessToken, verifiedToken);
+
+    return verifiedToken;
   }
 
   /**
-   * Refreshes the access and refresh tokens for a user.
+   * Refreshes the access and refresh tokens for a user. Concurrent calls with the same refresh
+   * token and client IP are coalesced: only the first one rotates the session, the others receive
+   * the same tokens.
    *
    * @param refreshToken the refresh token of the user
    * @param clientIp the IP of the client
@@ -177,47 +409,67 @@ public class LoginService {
    * @throws LoginException if the refresh token is invalid or expired
    */
   public AuthTokens refreshTokens(String refreshToken, String clientIp) throws LoginException {
-    final var lockIndex = Math.abs(refreshToken.hashCode() % 10);
-
-    locks[lockIndex].lock();
+    final var start = System.nanoTime();
     try {
-      final var session = sessionRepository.findByField("refreshToken", refreshToken);
-      return session != null
-          ? refreshTokens(refreshToken, clientIp, session)
-          : tryRecentlyRefreshedSession(refreshToken, clientIp);
+      return refreshFlight.execute(
+          refreshToken + '|' + clientIp,
+          () -> rotateSession(refreshToken, clientIp),
+          LoginException.class);
+    } catch (LoginException e) {
+      metrics.refreshFailed(e);
+      throw e;
     } finally {
-      locks[lockIndex].unlock();
+      metrics.getRefreshLatency().observeSince(start);
     }
   }
 
-  private AuthTokens refreshTokens(String refreshToken, String clientIp, Session session)
-      throws LoginException {
-    validateSessionIp(clientIp, session);
-
-    if (session.getRefreshExpiryTime() < new Date().getTime()) {
-      throw LoginException.from(ErrorCodes.EXPIRED_REFRESH);
+  /**
+   * Rotates the session with a single conditional update on its current refresh token, which is
+   * safe across nodes without any locking. If the update matches nothing, the session was either
+   * rotated by a concurrent request, bound to another IP, expired or never existed. Requests
+   * presenting a token rotated on this node within the grace time get the same tokens from the
+   * {@link RefreshGraceCache} without touching the database.
+   */
+  private AuthTokens rotateSession(String refreshToken, String clientIp) throws LoginException {
+    // a request that lost the race against a recent rotation on this node
+    final var rotatedTokens = refreshGraceCache.get(refreshToken);
+    if (rotatedTokens != null) {
+      if (!rotatedTokens.clientIp.equals(clientIp)) {
+        logger.error("Client IP {} different from session IP {}", clientIp, rotatedTokens.clientIp);
+        throw LoginException.from(ErrorCodes.IP_INVALID);
+      }
+      return rotatedTokens.authTokens;
     }
 
-    final var expirationDateRefresh = new Date();
-    expirationDateRefresh.setTime(expirationDateRefresh.getTime() + REFRESH_TIME);
-    final var newRefreshToken = UUID.randomUUID().toString();
+    final var now = System.currentTimeMillis();
+    final var rotatedSession =
+        sessionStore.rotateRefreshToken(
+            refreshToken, clientIp, UUID.randomUUID().toString(), now, now + REFRESH_TIME);
 
-    session.setRefreshExpiryTime(expirationDateRefresh.getTime());
-    session.setRefreshToken(newRefreshToken);
-    session.setOldRefreshToken(refreshToken);
-    sessionRepository.save(session);
+    if (rotatedSession != null) {
+      final var authTokens = getAuthTokens(rotatedSession);
+      refreshGraceCache.put(refreshToken, rotatedSession.getUserId(), clientIp, authTokens);
+      return authTokens;
+    }
+
+    final var session = sessionStore.findByRefreshToken(refreshToken);
+    if (session == null) {
+      return tryRecentlyRefreshedSession(refreshToken, clientIp);
+    }
 
-    return getAuthTokens(session);
+    validateSessionIp(clientIp, session);
+    throw LoginException.from(ErrorCodes.EXPIRED_REFRESH);
   }
 
   private AuthTokens tryRecentlyRefreshedSession(String refreshToken, String clientIp)
       throws LoginException {
-    final var refreshedSession = sessionRepository.findByField("oldRefreshToken", refreshToken);
+    final var refreshedSession = sessionStore.findByOldRefreshToken(refreshToken);
 
     if (refreshedSession != null) {
       validateSessionIp(clientIp, refreshedSession);
 
-      if (refreshedSession.getRefreshExpiryTime() > new Date().getTime() + REFRESH_TIME - 10000L) {
+      if (refreshedSession.getRefreshExpiryTime()
+          > new Date().getTime() + REFRESH_TIME - REFRESH_GRACE_TIME) {
         return getAuthTokens(refreshedSession);
       }
     }
@@ -240,6 +492,11 @@ public class LoginService {
       throw LoginException.from(ErrorCodes.USER_NOT_FOUND);
     }
 
+    if (!user.isActive()) {
+      logger.debug("Inactive user account {}", user.getUserName());
+      throw LoginException.from(ErrorCodes.USER_INACTIVE_ACCOUNT);
+    }
+
     return getAuthTokens(session, user.getRole());
   }
 
@@ -248,12 +505,36 @@ public class LoginService {
     return new AuthTokens(accessToken, session.getRefreshToken());
   }
 
+  /**
+   * Logs a user out of one session and revokes the user's access tokens. Access tokens are not
+   * bound to a session, so the revocation is intentionally per user: the other sessions keep their
+   * refresh tokens and obtain new access tokens on their next request.
+   *
+   * @param userId the user ID
+   * @throws LoginException if the user has no session
+   */
   public void logout(String userId) throws LoginException {
-    final var session = sessionRepository.findByField("userId", userId);
-    if (session == null) {
+    final var sessions = sessionStore.findByUserId(userId);
+    if (sessions.isEmpty()) {
       throw LoginException.from(ErrorCodes.SESSION_NOT_FOUND);
     }
 
-    sessionRepository.delete(session);
+    sessionStore.delete(sessions.get(0));
+    refreshGraceCache.invalidateUser(userId);
+    revocationService.revokeUser(userId);
+  }
+
+  /**
+   * Logs a user out of every session with a single bulk delete and revokes the user's access
+   * tokens.
+   *
+   * @param userId the user ID
+   * @return the number of closed sessions
+   */
+  public long logoutAll(String userId) {
+    final var deleted = sessionStore.deleteByUserId(userId);
+    refreshGraceCache.invalidateUser(userId);
+    revocationService.revokeUser(userId);
+    return deleted;
   }
 }
@@ -0,0 +1,143 @@
+package dot.cpp.core.services;
+
+import com.typesafe.config.Config;
+import dot.cpp.core.enums.ErrorCodes;
+import dot.cpp.core.exceptions.LoginException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Runs memory-hard password hashing on a dedicated pool so that login bursts cannot tie up the
+ * request dispatcher threads. The pool is sized to the core count by default and has a bounded
+ * queue; work submitted while the queue is full is rejected immediately with {@link
+ * ErrorCodes#SERVER_BUSY}.
+ */
+@Singleton
+public class PasswordHashingExecutor {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final ThreadPoolExecutor executor;
+  private final LongAdder hashCount = new LongAdder();
+  private final LongAdder hashNanos = new LongAdder();
+  private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0L);
+  private final LongAdder rejectedCount = new LongAdder();
+
+  @Inject
+  public PasswordHashingExecutor(Config config, ApplicationLifecycle lifecycle) {
+    final var configuredThreads = config.getInt("password.hashing.threads");
+    final var threads =
+        configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+    final var threadCounter = new AtomicInteger();
+
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getInt("password.hashing.queue.size")),
+            runnable -> {
+              final var thread =
+                  new Thread(runnable, "password-hashing-" + threadCounter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    lifecycle.addStopHook(
+        () -> {
+          executor.shutdown();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  /**
+   * Submits a hashing operation to the pool.
+   *
+   * @param hashing the hashing operation
+   * @return a stage completed with the result, or failed with a {@link LoginException} if the pool
+   *     is saturated
+   */
+  public <T> CompletionStage<T> submit(Supplier<T> hashing) {
+    try {
+      return CompletableFuture.supplyAsync(() -> timed(hashing), executor);
+    } catch (RejectedExecutionException e) {
+      rejectedCount.increment();
+      logger.warn("Password hashing pool saturated, queue depth {}", getQueueDepth());
+      return CompletableFuture.failedFuture(LoginException.from(ErrorCodes.SERVER_BUSY));
+    }
+  }
+
+  /**
+   * Runs a hashing operation on the pool and waits for its result.
+   *
+   * @param hashing the hashing operation
+   * @return the result of the operation
+   * @throws LoginException if the pool is saturated
+   */
+  public <T> T execute(Supplier<T> hashing) throws LoginException {
+    try {
+      return submit(hashing).toCompletableFuture().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof LoginException) {
+        throw (LoginException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public int getPoolSize() {
+    return executor.getMaximumPoolSize();
+  }
+
+  public long getHashCount() {
+    return hashCount.sum();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  public double getAverageHashMillis() {
+    final var count = hashCount.sum();
+    return count == 0L ? 0D : hashNanos.sum() / (double) count / 1_000_000D;
+  }
+
+  public double getMaxHashMillis() {
+    return maxHashNanos.get() / 1_000_000D;
+  }
+
+  private <T> T timed(Supplier<T> hashing) {
+    final var start = System.nanoTime();
+    try {
+      return hashing.get();
+    } finally {
+      final var elapsed = System.nanoTime() - start;
+      hashCount.increment();
+      hashNanos.add(elapsed);
+      maxHashNanos.accumulate(elapsed);
+    }
+  }
+}
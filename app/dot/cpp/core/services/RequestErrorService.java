@@ -81,9 +81,8 @@ public final class RequestErrorService {
     } else if (e instanceof BaseException) {
       final var errorCode = ((BaseException) e).getErrorCode();
       errorMessage = messagesApi.preferred(request).apply(errorCode.getMessage());
-      errorCode.setDetails(errorMessage);
 
-      logger.error("{}", errorCode);
+      logger.error("{}", errorCode.withDetails(errorMessage));
       logger.error("", e);
     } else {
       logger.error("", e);
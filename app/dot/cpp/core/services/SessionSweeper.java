@@ -0,0 +1,75 @@
+package dot.cpp.core.services;
+
+import com.typesafe.config.Config;
+import dot.cpp.core.models.session.store.SessionStore;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/** Periodically deletes the sessions whose refresh token has expired. */
+@Singleton
+public class SessionSweeper {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final SessionStore sessionStore;
+  private final RepositoryService repositoryService;
+  private final int batchSize;
+
+  @Inject
+  public SessionSweeper(
+      SessionStore sessionStore,
+      RepositoryService repositoryService,
+      Config config,
+      ApplicationLifecycle lifecycle) {
+    this.sessionStore = sessionStore;
+    this.repositoryService = repositoryService;
+    this.batchSize = config.getInt("session.sweeper.batch.size");
+
+    final var interval = config.getDuration("session.sweeper.interval").toMillis();
+    final var scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final var thread = new Thread(runnable, "session-sweeper");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(this::runSweep, interval, interval, TimeUnit.MILLISECONDS);
+
+    lifecycle.addStopHook(
+        () -> {
+          scheduler.shutdown();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  /**
+   * Deletes the expired sessions.
+   *
+   * @return the number of deleted sessions
+   */
+  public long sweep() {
+    if (!repositoryService.isDatabaseInitialized()) {
+      return 0L;
+    }
+
+    final var deleted = sessionStore.deleteExpired(System.currentTimeMillis(), batchSize);
+    if (deleted > 0L) {
+      logger.info("Deleted {} expired sessions", deleted);
+    }
+    return deleted;
+  }
+
+  private void runSweep() {
+    try {
+      sweep();
+    } catch (RuntimeException e) {
+      logger.error("Expired session sweep failed", e);
+    }
+  }
+}
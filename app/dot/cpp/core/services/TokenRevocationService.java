@@ -0,0 +1,135 @@
+package dot.cpp.core.services;
+
+import static dot.cpp.core.services.LoginService.ACCESS_TIME;
+
+import com.typesafe.config.Config;
+import dev.morphia.query.filters.Filters;
+import dot.cpp.core.models.revocation.entity.TokenRevocation;
+import dot.cpp.core.models.revocation.repository.TokenRevocationRepository;
+import dot.cpp.core.utils.BloomFilter;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Revokes every access token of a user issued up to a point in time. Checks run against an
+ * in-memory Bloom filter, so the common case of a user without revocations costs a few hashes;
+ * only possible matches are looked up in the exact map. Revocations are persisted, reloaded
+ * periodically so that every node sees them, and dropped once the revoked tokens have expired.
+ */
+@Singleton
+public class TokenRevocationService {
+
+  private static final double FALSE_POSITIVE_RATE = 0.01D;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final TokenRevocationRepository revocationRepository;
+  private final RepositoryService repositoryService;
+  private final int expectedEntries;
+  private final Map<String, Long> notBeforeByUserId = new ConcurrentHashMap<>();
+  private volatile BloomFilter bloomFilter;
+
+  @Inject
+  public TokenRevocationService(
+      TokenRevocationRepository revocationRepository,
+      RepositoryService repositoryService,
+      Config config,
+      ApplicationLifecycle lifecycle) {
+    this.revocationRepository = revocationRepository;
+    this.repositoryService = repositoryService;
+    this.expectedEntries = config.getInt("auth.revocation.expected.entries");
+    this.bloomFilter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+
+    final var interval = config.getDuration("auth.revocation.refresh.interval").toMillis();
+    final var scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final var thread = new Thread(runnable, "token-revocation-refresh");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(this::refresh, 0L, interval, TimeUnit.MILLISECONDS);
+
+    lifecycle.addStopHook(
+        () -> {
+          scheduler.shutdown();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  /**
+   * Returns whether an access token was revoked.
+   *
+   * @param userId the subject of the token
+   * @param issuedAt the issue time of the token in milliseconds
+   * @return true if the token was issued no later than the second the user's tokens were revoked
+   */
+  public boolean isRevoked(String userId, long issuedAt) {
+    if (!bloomFilter.mightContain(userId)) {
+      return false;
+    }
+
+    final var notBefore = notBeforeByUserId.get(userId);
+    return notBefore != null && truncateToSecond(issuedAt) <= notBefore;
+  }
+
+  /**
+   * Revokes every access token of the user issued until now. Token issue times have a resolution
+   * of one second, so tokens issued later within the current second are revoked as well.
+   *
+   * @param userId the user ID
+   */
+  public void revokeUser(String userId) {
+    final var notBefore = truncateToSecond(System.currentTimeMillis());
+
+    notBeforeByUserId.merge(userId, notBefore, Math::max);
+    bloomFilter.put(userId);
+    revocationRepository.revoke(userId, notBefore, new Date(notBefore + ACCESS_TIME));
+  }
+
+  private static long truncateToSecond(long millis) {
+    return millis / 1000L * 1000L;
+  }
+
+  public int size() {
+    return notBeforeByUserId.size();
+  }
+
+  /** Reloads the revocations saved by any node and drops the expired ones. */
+  private void refresh() {
+    try {
+      if (!repositoryService.isDatabaseInitialized()) {
+        return;
+      }
+
+      final var now = System.currentTimeMillis();
+      revocationRepository
+          .listWithFilter(Filters.gt(TokenRevocation.EXPIRE_AT, new Date(now)))
+          .forEach(
+              revocation ->
+                  notBeforeByUserId.merge(
+                      revocation.getUserId(), revocation.getNotBefore(), Math::max));
+      notBeforeByUserId.values().removeIf(notBefore -> notBefore + ACCESS_TIME <= now);
+
+      // entries cannot be removed from a Bloom filter, so it is rebuilt from the live entries
+      final var capacity = Math.max(expectedEntries, notBeforeByUserId.size());
+      final var rebuiltFilter = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+      notBeforeByUserId.keySet().forEach(rebuiltFilter::put);
+      bloomFilter = rebuiltFilter;
+
+      // revocations added while rebuilding must stay visible
+      notBeforeByUserId.keySet().forEach(bloomFilter::put);
+    } catch (RuntimeException e) {
+      logger.error("Could not refresh token revocations", e);
+    }
+  }
+}
@@ -5,20 +5,26 @@ import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
 import com.password4j.Argon2Function;
 import com.password4j.Hash;
 import com.password4j.Password;
-import com.password4j.types.Argon2;
 import com.typesafe.config.Config;
 import dev.morphia.query.filters.Filters;
+import dot.cpp.core.cache.RefreshGraceCache;
+import dot.cpp.core.cache.UserSnapshotCache;
 import dot.cpp.core.enums.ErrorCodes;
 import dot.cpp.core.exceptions.BaseException;
+import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.helpers.Argon2Helper;
+import dot.cpp.core.metrics.AuthMetrics;
 import dot.cpp.core.models.user.entity.User;
 import dot.cpp.core.models.user.repository.UserRepository;
 import dot.cpp.core.models.user.request.SetPasswordRequest;
 import dot.cpp.core.models.user.request.UserRequest;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import play.libs.concurrent.ClassLoaderExecutionContext;
 
 @Singleton
 public class UserService extends EntityService<User, UserRequest> {
@@ -32,12 +38,33 @@ public class UserService extends EntityService<User, UserRequest> {
   public static final String RESET_PASSWORD_UUID = "resetPasswordUuid";
   private final Logger logger = LoggerFactory.getLogger(getClass());
   private final String passwordPepper;
-  private final Argon2Function argon2 = Argon2Function.getInstance(1000, 4, 2, 32, Argon2.ID, 19);
+  private final Argon2Function argon2;
+  private final PasswordHashingExecutor hashingExecutor;
+  private final UserSnapshotCache userSnapshotCache;
+  private final TokenRevocationService revocationService;
+  private final AuthMetrics metrics;
+  private final RefreshGraceCache refreshGraceCache;
+  private final ClassLoaderExecutionContext executionContext;
 
   @Inject
-  public UserService(UserRepository userRepository, Config config) {
+  public UserService(
+      UserRepository userRepository,
+      Config config,
+      PasswordHashingExecutor hashingExecutor,
+      UserSnapshotCache userSnapshotCache,
+      TokenRevocationService revocationService,
+      AuthMetrics metrics,
+      RefreshGraceCache refreshGraceCache,
+      ClassLoaderExecutionContext executionContext) {
     super(userRepository, config);
     this.passwordPepper = config.getString("password.pepper");
+    this.hashingExecutor = hashingExecutor;
+    this.userSnapshotCache = userSnapshotCache;
+    this.revocationService = revocationService;
+    this.metrics = metrics;
+    this.refreshGraceCache = refreshGraceCache;
+    this.executionContext = executionContext;
+    this.argon2 = getArgon2Function(config);
   }
 
   @Override
@@ -77,6 +104,31 @@ public class UserService extends EntityService<User, UserRequest> {
     return (UserRepository) super.getRepository();
   }
 
+  @Override
+  protected boolean isCached() {
+    // the user snapshots are cached even when the entity cache is disabled
+    return true;
+  }
+
+  @Override
+  protected void processAfterWrite(User user) {
+    userSnapshotCache.invalidate(user.getRecordId());
+  }
+
+  @Override
+  protected void processAfterBulkWrite() {
+    userSnapshotCache.invalidateAll();
+  }
+
+  @Override
+  protected void processAfterRemoteWrite(String recordId) {
+    if (recordId == null) {
+      userSnapshotCache.invalidateAll();
+    } else {
+      userSnapshotCache.invalidate(recordId);
+    }
+  }
+
   public User setPassword(
       SetPasswordRequest request, String resetPasswordUuid, String modifiedComment)
       throws BaseException {
@@ -125,10 +177,117 @@ public class UserService extends EntityService<User, UserRequest> {
     user.setEmail(String.format("inactive-%s@terra.ro", user.getUserName()));
     user.setModifiedComment(DEACTIVATE_USER);
     saveWithHistory(user);
+    refreshGraceCache.invalidateUser(id);
+    revocationService.revokeUser(id);
+  }
+
+  public boolean passwordIsValid(String actualPassword, String inputPassword)
+      throws LoginException {
+    final var start = System.nanoTime();
+    try {
+      return hashingExecutor.execute(() -> checkPassword(actualPassword, inputPassword));
+    } finally {
+      metrics.getPasswordCheckLatency().observeSince(start);
+    }
+  }
+
+  /**
+   * Checks the password of a user. If the stored hash was produced with weaker Argon2 parameters,
+   * see {@link Argon2Helper#needsRehash}, it is replaced with a hash using the current parameters.
+   *
+   * @param user the user
+   * @param inputPassword the password to check
+   * @return true if the password is valid
+   * @throws LoginException if the hashing pool is saturated
+   */
+  public boolean passwordIsValid(User user, String inputPassword) throws LoginException {
+    final var actualPassword = user.getPassword();
+    final var start = System.nanoTime();
+    final PasswordCheck passwordCheck;
+    try {
+      passwordCheck = hashingExecutor.execute(() -> checkAndRehash(actualPassword, inputPassword));
+    } finally {
+      metrics.getPasswordCheckLatency().observeSince(start);
+    }
+    return upgradePassword(user, actualPassword, passwordCheck);
+  }
+
+  /**
+   * Checks a password on the password hashing pool without blocking the calling thread.
+   *
+   * @param actualPassword the stored password hash
+   * @param inputPassword the password to check
+   * @return a stage completed with the check result, or failed with a {@link LoginException} if
+   *     the hashing pool is saturated
+   */
+  public CompletionStage<Boolean> passwordIsValidAsync(
+      String actualPassword, String inputPassword) {
+    final var start = System.nanoTime();
+    return hashingExecutor
+        .submit(() -> checkPassword(actualPassword, inputPassword))
+        .whenComplete((valid, e) -> metrics.getPasswordCheckLatency().observeSince(start));
+  }
+
+  /**
+   * Asynchronous variant of {@link #passwordIsValid(User, String)}. The upgraded hash, if any, is
+   * saved on Play's default execution context, not on the hashing pool.
+   *
+   * @param user the user
+   * @param inputPassword the password to check
+   * @return a stage completed with the check result, or failed with a {@link LoginException} if
+   *     the hashing pool is saturated
+   */
+  public CompletionStage<Boolean> passwordIsValidAsync(User user, String inputPassword) {
+    final var actualPassword = user.getPassword();
+    final var start = System.nanoTime();
+    return hashingExecutor
+        .submit(() -> checkAndRehash(actualPassword, inputPassword))
+        .whenComplete((check, e) -> metrics.getPasswordCheckLatency().observeSince(start))
+        .thenApplyAsync(
+            passwordCheck -> upgradePassword(user, actualPassword, passwordCheck),
+            executionContext.current());
   }
 
-  public boolean passwordIsValid(String actualPassword, String inputPassword) {
-    return Password.check(inputPassword, actualPassword).addPepper(passwordPepper).with(argon2);
+  private boolean checkPassword(String actualPassword, String inputPassword) {
+    try {
+      // verify with the parameters the hash was created with, which may predate the current ones
+      return Password.check(inputPassword, actualPassword)
+          .addPepper(passwordPepper)
+          .with(Argon2Function.getInstanceFromHash(actualPassword));
+    } catch (RuntimeException e) {
+      logger.debug("Stored password is not a valid Argon2 hash {}", e.getMessage());
+      return false;
+    }
+  }
+
+  private PasswordCheck checkAndRehash(String actualPassword, String inputPassword) {
+    if (!checkPassword(actualPassword, inputPassword)) {
+      return PasswordCheck.INVALID;
+    }
+
+    return Argon2Helper.needsRehash(actualPassword, argon2)
+        ? new PasswordCheck(true, hashPassword(inputPassword).getResult())
+        : PasswordCheck.VALID;
+  }
+
+  private boolean upgradePassword(User user, String actualPassword, PasswordCheck passwordCheck) {
+    if (passwordCheck.upgradedHash != null) {
+      try {
+        // only the hash is written, and only if no one changed the password since it was read
+        final var updated =
+            getRepository()
+                .updatePassword(user.getRecordId(), actualPassword, passwordCheck.upgradedHash);
+        if (updated) {
+          user.setPassword(passwordCheck.upgradedHash);
+          evictFromCache(user);
+          logger.info("Upgraded password hash parameters for user {}", user.getUserName());
+        }
+      } catch (RuntimeException e) {
+        logger.error("Could not upgrade password hash for user {}", user.getUserName(), e);
+      }
+    }
+
+    return passwordCheck.valid;
   }
 
   private boolean emailExists(String email, String id) {
@@ -140,7 +299,47 @@ public class UserService extends EntityService<User, UserRequest> {
         != null;
   }
 
-  private Hash getHashedPassword(String password) {
+  private Hash getHashedPassword(String password) throws BaseException {
+    try {
+      return hashingExecutor.execute(() -> hashPassword(password));
+    } catch (LoginException e) {
+      // a saturated pool is not a login failure for the callers setting passwords
+      throw new BaseException(e.getErrorCode());
+    }
+  }
+
+  private Hash hashPassword(String password) {
     return Password.hash(password).addRandomSalt(16).addPepper(passwordPepper).with(argon2);
   }
+
+  private static Argon2Function getArgon2Function(Config config) {
+    final var memory = config.getInt("password.argon2.memory");
+    final var iterations = config.getInt("password.argon2.iterations");
+    final var parallelism = config.getInt("password.argon2.parallelism");
+
+    if (!config.getBoolean("password.argon2.calibrate")) {
+      return Argon2Helper.getInstance(memory, iterations, parallelism);
+    }
+
+    return Argon2Helper.calibrate(
+        memory,
+        iterations,
+        parallelism,
+        config.getInt("password.argon2.max.memory"),
+        config.getLong("password.argon2.target.millis"));
+  }
+
+  private static class PasswordCheck {
+
+    static final PasswordCheck VALID = new PasswordCheck(true, null);
+    static final PasswordCheck INVALID = new PasswordCheck(false, null);
+
+    final boolean valid;
+    final String upgradedHash;
+
+    PasswordCheck(boolean valid, String upgradedHash) {
+      this.valid = valid;
+      this.upgradedHash = upgradedHash;
+    }
+  }
 }
@@ -0,0 +1,66 @@
+package dot.cpp.core.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings. {@link #mightContain(String)} never returns false for a
+ * value that was put, and returns true for other values with about the configured probability.
+ */
+public class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray bits;
+  private final int bitCount;
+  private final int hashCount;
+
+  public BloomFilter(int expectedEntries, double falsePositiveRate) {
+    final var entries = Math.max(1, expectedEntries);
+    final var optimalBits = Math.ceil(-entries * Math.log(falsePositiveRate) / (LN2 * LN2));
+
+    this.bitCount = (int) Math.max(64L, Math.min(Integer.MAX_VALUE - 63L, (long) optimalBits));
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * LN2));
+    this.bits = new AtomicLongArray((bitCount + 63) >>> 6);
+  }
+
+  public void put(String value) {
+    final var hash = hash(value);
+    final var hash1 = (int) hash;
+    final var hash2 = (int) (hash >>> 32);
+
+    for (int i = 0; i < hashCount; i++) {
+      final var bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      bits.getAndAccumulate(bit >>> 6, 1L << (bit & 63), (word, mask) -> word | mask);
+    }
+  }
+
+  public boolean mightContain(String value) {
+    final var hash = hash(value);
+    final var hash1 = (int) hash;
+    final var hash2 = (int) (hash >>> 32);
+
+    for (int i = 0; i < hashCount; i++) {
+      final var bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** FNV-1a over the characters followed by the MurmurHash3 finalizer. */
+  private static long hash(String value) {
+    var hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
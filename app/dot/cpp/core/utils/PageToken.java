@@ -0,0 +1,99 @@
+package dot.cpp.core.utils;
+
+import dot.cpp.core.enums.ErrorCodes;
+import dot.cpp.core.exceptions.BaseException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+/**
+ * Position in a keyset paginated list: the sort key values of the entity at the page boundary,
+ * ending with its record id, and the direction to read in. Encoded as URL-safe Base64 of extended
+ * JSON, which keeps the BSON types of the values, so clients can pass it around as an opaque
+ * string. The token also carries the sort it was created for and is rejected under another sort.
+ */
+public class PageToken {
+
+  private static final String VALUES = "v";
+  private static final String BACKWARD = "b";
+  private static final String SORT = "s";
+  private static final JsonWriterSettings JSON_SETTINGS =
+      JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+  public final List<Object> values;
+  public final boolean backward;
+  public final String sort;
+
+  /**
+   * Creates a token. Values are converted to the types Morphia stores them as: enums to their
+   * names and java.time dates to UTC dates.
+   *
+   * @param values the sort key values, ending with the record id
+   * @param backward whether the page before the boundary is requested
+   * @param sort the signature of the sort the values belong to
+   */
+  public PageToken(List<Object> values, boolean backward, String sort) {
+    final var storedValues = new ArrayList<>(values.size());
+    for (var value : values) {
+      storedValues.add(toStoredValue(value));
+    }
+    this.values = storedValues;
+    this.backward = backward;
+    this.sort = sort;
+  }
+
+  /**
+   * Decodes a token created for the given sort.
+   *
+   * @param token the encoded token
+   * @param sort the signature of the current sort
+   * @return the token
+   * @throws BaseException if the token is malformed or belongs to another sort
+   */
+  public static PageToken decode(String token, String sort) throws BaseException {
+    try {
+      final var json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      final var document = Document.parse(json);
+      final var values = document.getList(VALUES, Object.class);
+      if (!sort.equals(document.getString(SORT)) || values == null) {
+        throw BaseException.from(ErrorCodes.INVALID_PAGE_TOKEN);
+      }
+      return new PageToken(values, document.getBoolean(BACKWARD, false), sort);
+    } catch (RuntimeException e) {
+      throw BaseException.from(ErrorCodes.INVALID_PAGE_TOKEN);
+    }
+  }
+
+  public String encode() {
+    final var document =
+        new Document(VALUES, values).append(BACKWARD, backward).append(SORT, sort);
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(document.toJson(JSON_SETTINGS).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Object toStoredValue(Object value) {
+    if (value instanceof Enum<?> enumValue) {
+      return enumValue.name();
+    }
+    if (value instanceof Instant instant) {
+      return Date.from(instant);
+    }
+    if (value instanceof LocalDateTime localDateTime) {
+      return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+    }
+    if (value instanceof LocalDate localDate) {
+      return Date.from(localDate.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+    return value;
+  }
+}
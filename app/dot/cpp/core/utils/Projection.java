@@ -0,0 +1,76 @@
+package dot.cpp.core.utils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The fields to load of an entity. Entities read with a projection have only these fields and the
+ * record id set, so the entity services refuse to save them. Projections are compared by their
+ * fields; keeping them in constants avoids rebuilding them, though services validate each distinct
+ * set once anyway.
+ */
+public final class Projection {
+
+  private final Set<String> fields;
+
+  private Projection(Set<String> fields) {
+    if (fields.isEmpty()) {
+      throw new IllegalArgumentException("A projection needs at least one field");
+    }
+    this.fields = Set.copyOf(fields);
+  }
+
+  /**
+   * Creates a projection of entity fields. Nested fields can be given as dotted paths.
+   *
+   * @param fields the fields
+   * @return the projection
+   */
+  public static Projection of(String... fields) {
+    return new Projection(new TreeSet<>(Arrays.asList(fields)));
+  }
+
+  /**
+   * Creates the projection of the writable properties of a view class, which are the fields to
+   * load in order to fill the view.
+   *
+   * @param viewClass the view class
+   * @return the projection
+   */
+  public static Projection of(Class<?> viewClass) {
+    try {
+      final var fields = new TreeSet<String>();
+      for (var descriptor :
+          Introspector.getBeanInfo(viewClass, Object.class).getPropertyDescriptors()) {
+        if (descriptor.getWriteMethod() != null) {
+          fields.add(descriptor.getName());
+        }
+      }
+      return new Projection(fields);
+    } catch (IntrospectionException e) {
+      throw new IllegalArgumentException("Could not introspect " + viewClass.getName(), e);
+    }
+  }
+
+  public Set<String> getFields() {
+    return fields;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof Projection projection && fields.equals(projection.fields));
+  }
+
+  @Override
+  public int hashCode() {
+    return fields.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return fields.toString();
+  }
+}
@@ -0,0 +1,259 @@
+package dot.cpp.core.utils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Copies bean properties like Spring's {@code BeanUtils.copyProperties}: every readable property of
+ * the source is copied to the writable property of the target with the same name, if the types are
+ * assignable or a converter is registered for them. The introspection is done once per pair of
+ * source and target classes and kept as a plan of method handles, so a copy only invokes the
+ * getters and setters.
+ *
+ * <p>Plans are attached with {@link ClassValue} to whichever of the two classes can see the other,
+ * so they are dropped together with the classes and do not keep a reloaded application class
+ * loader alive. Plans between classes of unrelated class loaders are not kept.
+ *
+ * <p>Copiers are immutable; {@link #withConverter} returns a new copier with its own plans.
+ */
+public class PropertyCopier {
+
+  private static final PropertyCopier DEFAULT = new PropertyCopier(Map.of());
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Map<ConversionKey, Function<Object, Object>> converters;
+  // plans by target type kept on the source type, and by source type kept on the target type
+  private final ClassValue<Map<Class<?>, Property[]>> plansOnSourceType = new PlanMaps();
+  private final ClassValue<Map<Class<?>, Property[]>> plansOnTargetType = new PlanMaps();
+
+  private PropertyCopier(Map<ConversionKey, Function<Object, Object>> converters) {
+    this.converters = converters;
+  }
+
+  /** Returns the copier without converters. */
+  public static PropertyCopier getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns a copier that also copies properties of the source type to properties of the target
+   * type, converting each value with the converter. Null values are passed as null.
+   *
+   * @param sourceType the source property type
+   * @param targetType the target property type
+   * @param converter the conversion
+   * @return the new copier
+   */
+  @SuppressWarnings("unchecked")
+  public <A, B> PropertyCopier withConverter(
+      Class<A> sourceType, Class<B> targetType, Function<? super A, ? extends B> converter) {
+    final var newConverters = new HashMap<>(converters);
+    newConverters.put(
+        new ConversionKey(wrap(sourceType), wrap(targetType)),
+        value -> value == null ? null : ((Function<Object, Object>) converter).apply(value));
+    return new PropertyCopier(Map.copyOf(newConverters));
+  }
+
+  /**
+   * Copies the properties of the source to the target.
+   *
+   * @param source the source bean
+   * @param target the target bean
+   * @param ignoredProperties names of properties that are not copied
+   */
+  public void copy(Object source, Object target, String... ignoredProperties) {
+    final var plan = getPlan(source.getClass(), target.getClass());
+
+    for (var property : plan) {
+      if (ignoredProperties.length > 0 && isIgnored(property.name, ignoredProperties)) {
+        continue;
+      }
+      property.copy(source, target, converters);
+    }
+  }
+
+  private Property[] getPlan(Class<?> sourceType, Class<?> targetType) {
+    final var plansOfSource = plansOnSourceType.get(sourceType);
+    var plan = plansOfSource.get(targetType);
+    if (plan != null) {
+      return plan;
+    }
+
+    final var plansOfTarget = plansOnTargetType.get(targetType);
+    plan = plansOfTarget.get(sourceType);
+    if (plan != null) {
+      return plan;
+    }
+
+    // a plan references both classes, so it is kept on the one that cannot outlive the other
+    if (isVisible(targetType, sourceType.getClassLoader())) {
+      return plansOfSource.computeIfAbsent(targetType, type -> createPlan(sourceType, type));
+    }
+    if (isVisible(sourceType, targetType.getClassLoader())) {
+      return plansOfTarget.computeIfAbsent(sourceType, type -> createPlan(type, targetType));
+    }
+    return createPlan(sourceType, targetType);
+  }
+
+  private static boolean isVisible(Class<?> type, ClassLoader classLoader) {
+    if (type.getClassLoader() == classLoader || type.getClassLoader() == null) {
+      return true;
+    }
+    if (classLoader == null) {
+      return false;
+    }
+
+    try {
+      return Class.forName(type.getName(), false, classLoader) == type;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  private static boolean isIgnored(String name, String[] ignoredProperties) {
+    for (var ignoredProperty : ignoredProperties) {
+      if (ignoredProperty.equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Property[] createPlan(Class<?> sourceClass, Class<?> targetClass) {
+    final var sourceGetters = new HashMap<String, Method>();
+    for (var descriptor : getPropertyDescriptors(sourceClass)) {
+      if (descriptor.getReadMethod() != null) {
+        sourceGetters.put(descriptor.getName(), descriptor.getReadMethod());
+      }
+    }
+
+    final var properties = new ArrayList<Property>();
+    for (var descriptor : getPropertyDescriptors(targetClass)) {
+      final var setter = descriptor.getWriteMethod();
+      final var getter = sourceGetters.get(descriptor.getName());
+      if (setter == null || getter == null) {
+        continue;
+      }
+
+      final var sourceType = getter.getReturnType();
+      final var targetType = setter.getParameterTypes()[0];
+      final ConversionKey conversion;
+      if (wrap(targetType).isAssignableFrom(wrap(sourceType))) {
+        conversion = null;
+      } else {
+        conversion = new ConversionKey(wrap(sourceType), wrap(targetType));
+        if (!converters.containsKey(conversion)) {
+          continue;
+        }
+      }
+
+      properties.add(
+          new Property(
+              descriptor.getName(),
+              unreflect(getter).asType(GETTER_TYPE),
+              unreflect(setter).asType(SETTER_TYPE),
+              conversion,
+              targetType.isPrimitive()));
+    }
+
+    return properties.toArray(Property[]::new);
+  }
+
+  private static List<PropertyDescriptor> getPropertyDescriptors(Class<?> type) {
+    try {
+      return Arrays.stream(Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors())
+          .toList();
+    } catch (IntrospectionException e) {
+      throw new IllegalArgumentException("Could not introspect " + type.getName(), e);
+    }
+  }
+
+  private static MethodHandle unreflect(Method method) {
+    try {
+      // public methods of non-public classes, e.g. inherited from a package-private base class
+      if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+        method.setAccessible(true);
+      }
+      return MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Could not access " + method, e);
+    }
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+  }
+
+  private static final class Property {
+
+    private final String name;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    // the converter itself stays on the copier, plans only hold classes of the copied beans
+    private final ConversionKey conversion;
+    private final boolean primitiveTarget;
+
+    private Property(
+        String name,
+        MethodHandle getter,
+        MethodHandle setter,
+        ConversionKey conversion,
+        boolean primitiveTarget) {
+      this.name = name;
+      this.getter = getter;
+      this.setter = setter;
+      this.conversion = conversion;
+      this.primitiveTarget = primitiveTarget;
+    }
+
+    private void copy(
+        Object source, Object target, Map<ConversionKey, Function<Object, Object>> converters) {
+      try {
+        var value = (Object) getter.invokeExact(source);
+        if (conversion != null) {
+          value = converters.get(conversion).apply(value);
+        }
+        // a null cannot be unboxed, the primitive keeps its value
+        if (value == null && primitiveTarget) {
+          return;
+        }
+        setter.invokeExact(target, value);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException("Could not copy property " + name, e);
+      }
+    }
+  }
+
+  private static final class PlanMaps extends ClassValue<Map<Class<?>, Property[]>> {
+
+    @Override
+    protected Map<Class<?>, Property[]> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  }
+
+  private record ConversionKey(Class<?> sourceType, Class<?> targetType) {
+    private ConversionKey {
+      Objects.requireNonNull(sourceType);
+      Objects.requireNonNull(targetType);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package dot.cpp.core.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per key, implemented as a generic cell rate algorithm: each bucket is a single
+ * {@link AtomicLong} holding the theoretical arrival time of the next request, updated with a
+ * compare-and-set, so acquiring never locks. A bucket holds up to {@code capacity} tokens and
+ * regains one token every {@code refillInterval}. Memory is bounded by {@code maxKeys}; buckets of
+ * keys not seen for a full refill are dropped, since they would be full again anyway.
+ *
+ * @param <K> key type
+ */
+public class RateLimiter<K> {
+
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final Cache<K, AtomicLong> buckets;
+
+  /**
+   * Creates a rate limiter.
+   *
+   * @param capacity the number of requests allowed in a burst
+   * @param refillInterval the time to regain one request
+   * @param maxKeys the maximum number of tracked keys
+   */
+  public RateLimiter(int capacity, Duration refillInterval, long maxKeys) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Rate limiter capacity must be at least 1");
+    }
+
+    this.intervalNanos = refillInterval.toNanos();
+    this.toleranceNanos = intervalNanos * capacity;
+    this.buckets =
+        Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(Duration.ofNanos(toleranceNanos))
+            .build();
+  }
+
+  /**
+   * Takes a token from the bucket of the key.
+   *
+   * @param key the key
+   * @return true if a token was available, false if the request must be rejected
+   */
+  public boolean tryAcquire(K key) {
+    final var bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+
+    while (true) {
+      final var now = System.nanoTime();
+      final var arrivalTime = bucket.get();
+      final var nextArrivalTime = Math.max(arrivalTime, now) + intervalNanos;
+
+      if (nextArrivalTime - now > toleranceNanos) {
+        return false;
+      }
+
+      if (bucket.compareAndSet(arrivalTime, nextArrivalTime)) {
+        return true;
+      }
+    }
+  }
+
+  public long size() {
+    return buckets.estimatedSize();
+  }
+}
@@ -21,6 +21,9 @@ public class SearchRequest implements QueryStringBindable<SearchRequest> {
   @Constraints.MaxLength(value = 200, message = "constraints.field.invalid")
   private String filter;
 
+  @Constraints.MaxLength(value = 2000, message = "constraints.field.invalid")
+  private String pageToken;
+
   /** Creates a SearchRequest from filter. */
   public static SearchRequest from(String filter) {
     final var searchRequest = new SearchRequest();
@@ -41,6 +44,14 @@ public class SearchRequest implements QueryStringBindable<SearchRequest> {
     this.filter = filter;
   }
 
+  public String getPageToken() {
+    return pageToken;
+  }
+
+  public void setPageToken(String pageToken) {
+    this.pageToken = pageToken;
+  }
+
   /**
    * Get filter for field.
    *
@@ -73,14 +84,28 @@ public class SearchRequest implements QueryStringBindable<SearchRequest> {
   @Override
   public Optional<SearchRequest> bind(String key, Map<String, String[]> data) {
     final var possibleFilter = data.get("filter");
-    return possibleFilter != null
-        ? Optional.of(SearchRequest.from(possibleFilter[0]))
-        : Optional.empty();
+    final var possiblePageToken = data.get("pageToken");
+    if (possibleFilter == null && possiblePageToken == null) {
+      return Optional.empty();
+    }
+
+    final var searchRequest = SearchRequest.from(possibleFilter != null ? possibleFilter[0] : null);
+    if (possiblePageToken != null) {
+      searchRequest.setPageToken(possiblePageToken[0]);
+    }
+    return Optional.of(searchRequest);
   }
 
   @Override
   public String unbind(String key) {
-    return filter != null ? "filter=" + filter : "";
+    final var parameters = new ArrayList<String>();
+    if (filter != null) {
+      parameters.add("filter=" + filter);
+    }
+    if (pageToken != null) {
+      parameters.add("pageToken=" + pageToken);
+    }
+    return String.join("&", parameters);
   }
 
   @Override
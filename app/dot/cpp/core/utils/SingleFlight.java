@@ -0,0 +1,94 @@
+package dot.cpp.core.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the call, every caller that
+ * arrives while it is in flight waits for and receives the same result (or the same exception).
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder joinCount = new LongAdder();
+  private final LongAdder joinWaitNanos = new LongAdder();
+
+  /** A call that may throw a checked exception. */
+  @FunctionalInterface
+  public interface Call<V, E extends Exception> {
+    V call() throws E;
+  }
+
+  /**
+   * Runs the call for the key, or joins the call already in flight for the same key.
+   *
+   * @param key the key identifying the call
+   * @param call the call to run if no call is in flight for the key
+   * @param exceptionType the checked exception type the call may throw
+   * @return the result of the call
+   * @throws E the exception thrown by the call, rethrown to every waiting caller
+   */
+  public <E extends Exception> V execute(K key, Call<V, E> call, Class<E> exceptionType)
+      throws E {
+    final var future = new CompletableFuture<V>();
+    final var existing = inFlight.putIfAbsent(key, future);
+
+    if (existing != null) {
+      return join(existing, exceptionType);
+    }
+
+    try {
+      final var result = call.call();
+      future.complete(result);
+      return result;
+    } catch (Throwable throwable) {
+      future.completeExceptionally(throwable);
+      throw throwable;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  /** Returns how many callers joined a call already in flight. */
+  public long getJoinCount() {
+    return joinCount.sum();
+  }
+
+  /** Returns the total time callers spent waiting for calls already in flight. */
+  public long getJoinWaitNanos() {
+    return joinWaitNanos.sum();
+  }
+
+  private <E extends Exception> V join(CompletableFuture<V> future, Class<E> exceptionType)
+      throws E {
+    final var start = System.nanoTime();
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      final var cause = e.getCause();
+      if (exceptionType.isInstance(cause)) {
+        throw exceptionType.cast(cause);
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    } finally {
+      joinCount.increment();
+      joinWaitNanos.add(System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package dot.cpp.core.benchmarks;
+
+import static dot.cpp.core.constants.Constants.ACCESS_TOKEN;
+import static dot.cpp.core.constants.Constants.REFRESH_TOKEN;
+
+import dot.cpp.core.actions.AuthenticationAction;
+import dot.cpp.core.annotations.Authentication;
+import dot.cpp.core.enums.UserRole;
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import play.mvc.Action;
+import play.mvc.Http;
+import play.mvc.Result;
+import play.mvc.Results;
+
+/**
+ * The authentication action around an empty controller action, for a request with a valid access
+ * token and for a request that has to refresh its tokens first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationActionBenchmark {
+
+  private static final Authentication AUTHENTICATION =
+      new Authentication() {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+          return Authentication.class;
+        }
+
+        @Override
+        public String redirectUrl() {
+          return "/login";
+        }
+
+        @Override
+        public UserRole[] userRoles() {
+          return new UserRole[] {UserRole.USER};
+        }
+
+        @Override
+        public int status() {
+          return -1;
+        }
+      };
+
+  private BenchmarkApplication application;
+  private AuthenticationAction action;
+  private Http.Request validTokenRequest;
+  private String refreshToken;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application = new BenchmarkApplication(Map.of());
+    final var user = application.createUser();
+    final var accessToken = application.createAccessToken(user);
+    refreshToken = application.createSession(user).getRefreshToken();
+
+    action = application.instanceOf(AuthenticationAction.class);
+    action.setConfiguration(AUTHENTICATION);
+    action.delegate =
+        new Action.Simple() {
+          @Override
+          public CompletionStage<Result> call(Http.Request request) {
+            return CompletableFuture.completedFuture(Results.ok());
+          }
+        };
+
+    validTokenRequest =
+        new Http.RequestBuilder()
+            .header(Http.HeaderNames.X_FORWARDED_FOR, BenchmarkApplication.CLIENT_IP)
+            .cookie(Http.Cookie.builder(ACCESS_TOKEN, accessToken).build())
+            .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.stop();
+  }
+
+  @Benchmark
+  public Result validToken() {
+    return action.call(validTokenRequest).toCompletableFuture().join();
+  }
+
+  @Benchmark
+  public Result refresh() {
+    final var request =
+        new Http.RequestBuilder()
+            .header(Http.HeaderNames.X_FORWARDED_FOR, BenchmarkApplication.CLIENT_IP)
+            .cookie(Http.Cookie.builder(REFRESH_TOKEN, refreshToken).build())
+            .build();
+    final var result = action.call(request).toCompletableFuture().join();
+
+    // the refresh rotates the token, the next call uses the new one like a browser would
+    refreshToken =
+        result
+            .cookie(REFRESH_TOKEN)
+            .map(Http.Cookie::value)
+            .orElseThrow(() -> new IllegalStateException("Refresh failed"));
+    return result;
+  }
+}
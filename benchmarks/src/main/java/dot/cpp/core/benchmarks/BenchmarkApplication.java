@@ -0,0 +1,169 @@
+package dot.cpp.core.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static play.inject.Bindings.bind;
+
+import dot.cpp.core.enums.UserRole;
+import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.models.revocation.repository.TokenRevocationRepository;
+import dot.cpp.core.models.session.entity.Session;
+import dot.cpp.core.models.session.store.InMemorySessionStore;
+import dot.cpp.core.models.session.store.SessionStore;
+import dot.cpp.core.models.user.entity.User;
+import dot.cpp.core.models.user.repository.UserRepository;
+import dot.cpp.core.models.user.request.SetPasswordRequest;
+import dot.cpp.core.services.LoginService;
+import dot.cpp.core.services.UserService;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import play.Application;
+import play.inject.guice.GuiceApplicationBuilder;
+import play.test.Helpers;
+
+/**
+ * Application wired for benchmarks: the session store and the repositories are in-memory stand-ins,
+ * the rest of the authentication path is the production code.
+ */
+public class BenchmarkApplication {
+
+  public static final String CLIENT_IP = "10.0.0.1";
+  public static final String PASSWORD = "benchmark-password";
+
+  private final Map<String, User> users = new ConcurrentHashMap<>();
+  private final Application application;
+  private final SessionStore sessionStore = new InMemorySessionStore();
+
+  public BenchmarkApplication(Map<String, Object> configuration) {
+    final var repositoryService = mock(RepositoryService.class);
+    when(repositoryService.isDatabaseInitialized()).thenReturn(true);
+
+    application =
+        new GuiceApplicationBuilder()
+            .configure("password.pepper", "benchmark-pepper")
+            .configure("list.page.size", 20)
+            .configure("indexes.bootstrap.enabled", false)
+            .configure("auth.login.throttle.enabled", false)
+            .configure(configuration)
+            .overrides(
+                bind(RepositoryService.class).toInstance(repositoryService),
+                bind(UserRepository.class).toInstance(createUserRepository()),
+                bind(TokenRevocationRepository.class)
+                    .toInstance(mock(TokenRevocationRepository.class)),
+                bind(SessionStore.class).toInstance(sessionStore))
+            .build();
+    Helpers.start(application);
+  }
+
+  public <T> T instanceOf(Class<T> type) {
+    return application.injector().instanceOf(type);
+  }
+
+  public LoginService getLoginService() {
+    return instanceOf(LoginService.class);
+  }
+
+  /**
+   * Creates an active user whose password is {@link #PASSWORD}, hashed with the configured Argon2
+   * parameters.
+   *
+   * @return the user
+   */
+  public User createUser() {
+    final var user = new User();
+    user.setRecordId(UUID.randomUUID().toString());
+    user.setUserName("benchmark-" + user.getRecordId());
+    user.setEmail(user.getUserName() + "@benchmark.ro");
+    user.setFullName("Benchmark User");
+    user.setIdNumber("0");
+    user.setRole(UserRole.USER);
+    user.setActive(true);
+    user.setResetPasswordUuid(UUID.randomUUID().toString());
+    users.put(user.getRecordId(), user);
+
+    try {
+      final var request = new SetPasswordRequest();
+      request.setPassword(PASSWORD);
+      return instanceOf(UserService.class)
+          .setPassword(request, user.getResetPasswordUuid(), "Benchmark user");
+    } catch (Exception e) {
+      throw new IllegalStateException("Could not create benchmark user", e);
+    }
+  }
+
+  /**
+   * Creates a session of the user that can be refreshed from {@link #CLIENT_IP}.
+   *
+   * @param user the user
+   * @return the session
+   */
+  public Session createSession(User user) {
+    final var session = new Session();
+    session.setUserId(user.getRecordId());
+    session.setClientIp(CLIENT_IP);
+    session.setRefreshToken(UUID.randomUUID().toString());
+    session.setRefreshExpiryTime(System.currentTimeMillis() + LoginService.REFRESH_TIME);
+    return sessionStore.save(session);
+  }
+
+  /**
+   * Issues an access token for the user the way a request does, by refreshing a new session.
+   *
+   * @param user the user
+   * @return the access token
+   */
+  public String createAccessToken(User user) {
+    try {
+      return getLoginService()
+          .refreshTokens(createSession(user).getRefreshToken(), CLIENT_IP)
+          .accessToken;
+    } catch (LoginException e) {
+      throw new IllegalStateException("Could not issue benchmark access token", e);
+    }
+  }
+
+  public void stop() {
+    Helpers.stop(application);
+  }
+
+  private UserRepository createUserRepository() {
+    final var repository = mock(UserRepository.class);
+
+    when(repository.findById(anyString()))
+        .thenAnswer(invocation -> users.get(invocation.<String>getArgument(0)));
+    when(repository.findByField(anyString(), any()))
+        .thenAnswer(
+            invocation -> findByField(invocation.getArgument(0), invocation.getArgument(1)));
+    when(repository.save(any(User.class)))
+        .thenAnswer(invocation -> save(invocation.getArgument(0)));
+    when(repository.saveWithHistory(any(User.class)))
+        .thenAnswer(invocation -> save(invocation.getArgument(0)));
+
+    return repository;
+  }
+
+  private User findByField(String field, Object value) {
+    return users.values().stream()
+        .filter(
+            user ->
+                switch (field) {
+                  case UserService.USER_NAME -> Objects.equals(user.getUserName(), value);
+                  case UserService.EMAIL -> Objects.equals(user.getEmail(), value);
+                  case UserService.RESET_PASSWORD_UUID ->
+                      Objects.equals(user.getResetPasswordUuid(), value);
+                  default -> false;
+                })
+        .findFirst()
+        .orElse(null);
+  }
+
+  private User save(User user) {
+    users.put(user.getRecordId(), user);
+    return user;
+  }
+}
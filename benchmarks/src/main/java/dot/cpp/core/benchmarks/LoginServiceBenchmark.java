@@ -0,0 +1,60 @@
+package dot.cpp.core.benchmarks;
+
+import dot.cpp.core.enums.UserRole;
+import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.services.LoginService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Access token checking, with and without the verified token cache. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginServiceBenchmark {
+
+  @Param({"true", "false"})
+  public boolean tokenCache;
+
+  private BenchmarkApplication application;
+  private LoginService loginService;
+  private String accessToken;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application = new BenchmarkApplication(Map.of("auth.token.cache.enabled", tokenCache));
+    loginService = application.getLoginService();
+    accessToken = application.createAccessToken(application.createUser());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.stop();
+  }
+
+  @Benchmark
+  public String authorizeRequest() throws LoginException {
+    return loginService.authorizeRequest(accessToken, List.of());
+  }
+
+  @Benchmark
+  public String authorizeRequestWithRoles() throws LoginException {
+    return loginService.authorizeRequest(accessToken, List.of(UserRole.USER, UserRole.ADMIN));
+  }
+}
@@ -0,0 +1,75 @@
+package dot.cpp.core.benchmarks;
+
+import dot.cpp.core.exceptions.BaseException;
+import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.models.user.entity.User;
+import dot.cpp.core.models.user.request.SetPasswordRequest;
+import dot.cpp.core.services.UserService;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Argon2 password checks and hashing through the password hashing pool. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PasswordBenchmark {
+
+  @Param({"1000", "19456"})
+  public int memory;
+
+  private BenchmarkApplication application;
+  private UserService userService;
+  private User user;
+  private String passwordHash;
+  private SetPasswordRequest setPasswordRequest;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application = new BenchmarkApplication(Map.of("password.argon2.memory", memory));
+    userService = application.instanceOf(UserService.class);
+    user = application.createUser();
+    passwordHash = user.getPassword();
+
+    setPasswordRequest = new SetPasswordRequest();
+    setPasswordRequest.setPassword(BenchmarkApplication.PASSWORD);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.stop();
+  }
+
+  @Benchmark
+  public boolean passwordIsValid() throws LoginException {
+    return userService.passwordIsValid(passwordHash, BenchmarkApplication.PASSWORD);
+  }
+
+  @Benchmark
+  public boolean passwordIsInvalid() throws LoginException {
+    return userService.passwordIsValid(passwordHash, "wrong-password");
+  }
+
+  @Benchmark
+  public User hashPassword() throws BaseException {
+    final var resetPasswordUuid = UUID.randomUUID().toString();
+    user.setResetPasswordUuid(resetPasswordUuid);
+    return userService.setPassword(setPasswordRequest, resetPasswordUuid, "Benchmark");
+  }
+}
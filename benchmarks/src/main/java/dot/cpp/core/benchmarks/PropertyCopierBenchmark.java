@@ -0,0 +1,102 @@
+package dot.cpp.core.benchmarks;
+
+import dot.cpp.core.enums.UserRole;
+import dot.cpp.core.models.session.entity.Session;
+import dot.cpp.core.models.user.entity.User;
+import dot.cpp.core.models.user.request.UserRequest;
+import dot.cpp.core.utils.PropertyCopier;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * Property copies between requests and entities, as done on every save and form load, with Spring's
+ * {@link BeanUtils} and with the {@link PropertyCopier} that replaced it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyCopierBenchmark {
+
+  private final PropertyCopier propertyCopier = PropertyCopier.getDefault();
+
+  private User user;
+  private UserRequest userRequest;
+  private Session session;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    user = new User();
+    user.setRecordId(UUID.randomUUID().toString());
+    user.setUserName("benchmark");
+    user.setEmail("benchmark@benchmark.ro");
+    user.setFullName("Benchmark User");
+    user.setRole(UserRole.USER);
+    user.setActive(true);
+
+    userRequest = new UserRequest();
+    propertyCopier.copy(user, userRequest);
+
+    session = new Session();
+    session.setUserId(user.getRecordId());
+    session.setClientIp(BenchmarkApplication.CLIENT_IP);
+    session.setRefreshToken(UUID.randomUUID().toString());
+    session.setRefreshExpiryTime(System.currentTimeMillis());
+  }
+
+  @Benchmark
+  public User beanUtilsRequestToEntity() {
+    final var copy = new User();
+    BeanUtils.copyProperties(userRequest, copy);
+    return copy;
+  }
+
+  @Benchmark
+  public User propertyCopierRequestToEntity() {
+    final var copy = new User();
+    propertyCopier.copy(userRequest, copy);
+    return copy;
+  }
+
+  @Benchmark
+  public UserRequest beanUtilsEntityToRequest() {
+    final var copy = new UserRequest();
+    BeanUtils.copyProperties(user, copy);
+    return copy;
+  }
+
+  @Benchmark
+  public UserRequest propertyCopierEntityToRequest() {
+    final var copy = new UserRequest();
+    propertyCopier.copy(user, copy);
+    return copy;
+  }
+
+  @Benchmark
+  public Session beanUtilsSessionSnapshot() {
+    final var copy = new Session();
+    BeanUtils.copyProperties(session, copy);
+    return copy;
+  }
+
+  @Benchmark
+  public Session propertyCopierSessionSnapshot() {
+    final var copy = new Session();
+    propertyCopier.copy(session, copy);
+    return copy;
+  }
+}
@@ -0,0 +1,92 @@
+package dot.cpp.core.benchmarks;
+
+import dot.cpp.core.exceptions.LoginException;
+import dot.cpp.core.models.AuthTokens;
+import dot.cpp.core.services.LoginService;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Concurrent token refreshes: every thread refreshing the same session, as a browser does when
+ * several tabs see an expired access token at once, and every thread refreshing its own session.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class RefreshContentionBenchmark {
+
+  /** The application and one session shared by every thread. */
+  @State(Scope.Benchmark)
+  public static class SharedSession {
+
+    private BenchmarkApplication application;
+    private LoginService loginService;
+    private final AtomicReference<String> refreshToken = new AtomicReference<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      application = new BenchmarkApplication(Map.of());
+      loginService = application.getLoginService();
+      refreshToken.set(application.createSession(application.createUser()).getRefreshToken());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      application.stop();
+    }
+  }
+
+  /** A session of its own for each thread. */
+  @State(Scope.Thread)
+  public static class OwnSession {
+
+    private String refreshToken;
+
+    @Setup(Level.Trial)
+    public void setUp(SharedSession shared) {
+      refreshToken =
+          shared.application.createSession(shared.application.createUser()).getRefreshToken();
+    }
+  }
+
+  @Benchmark
+  public void sharedToken(SharedSession shared, Blackhole blackhole) {
+    final var refreshToken = shared.refreshToken.get();
+    try {
+      final var authTokens =
+          shared.loginService.refreshTokens(refreshToken, BenchmarkApplication.CLIENT_IP);
+      // threads that lost the race received the same tokens, only one of them moves on
+      shared.refreshToken.compareAndSet(refreshToken, authTokens.refreshToken);
+      blackhole.consume(authTokens);
+    } catch (LoginException e) {
+      // a stale token outside the grace window, the next iteration reads the current one
+      blackhole.consume(e);
+    }
+  }
+
+  @Benchmark
+  public AuthTokens distinctTokens(SharedSession shared, OwnSession own) throws LoginException {
+    final var authTokens =
+        shared.loginService.refreshTokens(own.refreshToken, BenchmarkApplication.CLIENT_IP);
+    own.refreshToken = authTokens.refreshToken;
+    return authTokens;
+  }
+}
@@ -0,0 +1,188 @@
+package dot.cpp.core.helpers;
+
+import static dot.cpp.core.helpers.PaginationHelper.getKeysetSort;
+import static dot.cpp.core.helpers.PaginationHelper.getSeekFilter;
+import static dot.cpp.repository.models.BaseEntity.RECORD_ID;
+import static org.junit.Assert.assertEquals;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import dev.morphia.Datastore;
+import dev.morphia.Morphia;
+import dev.morphia.query.Sort;
+import dev.morphia.query.filters.Filter;
+import dot.cpp.core.models.session.entity.Session;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that seeking past any row of a sorted list finds exactly the rows after it, with nulls
+ * and repeated values in the sort fields. Seek filters are encoded by Morphia as the entity
+ * services do and matched in memory, so no server is needed.
+ */
+public class PaginationHelperTest {
+
+  private static MongoClient mongoClient;
+  private static Datastore datastore;
+
+  private final List<Map<String, Object>> rows = createRows();
+
+  @BeforeClass
+  public static void setUpClass() {
+    // the client connects lazily, and encoding a query does not use the connection
+    mongoClient = MongoClients.create();
+    datastore = Morphia.createDatastore(mongoClient, "pagination-helper-test");
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    mongoClient.close();
+  }
+
+  @Test
+  public void seeksAscendingSortWithNulls() {
+    assertSeeksEveryRow(Sort.ascending(Session.REFRESH_EXPIRY_TIME));
+  }
+
+  @Test
+  public void seeksDescendingSortWithNulls() {
+    assertSeeksEveryRow(Sort.descending(Session.REFRESH_EXPIRY_TIME));
+  }
+
+  @Test
+  public void seeksSortOfSeveralFieldsInMixedOrder() {
+    assertSeeksEveryRow(
+        Sort.ascending(Session.USER_ID), Sort.descending(Session.REFRESH_EXPIRY_TIME));
+    assertSeeksEveryRow(
+        Sort.descending(Session.USER_ID), Sort.ascending(Session.REFRESH_EXPIRY_TIME));
+  }
+
+  @Test
+  public void seeksRecordIdSort() {
+    assertSeeksEveryRow(Sort.descending(RECORD_ID));
+  }
+
+  @Test
+  public void addsRecordIdToSortOnce() {
+    final var keysetSort = getKeysetSort(Sort.descending(Session.USER_ID));
+    assertEquals(2, keysetSort.length);
+    assertEquals(RECORD_ID, keysetSort[1].getField());
+    assertEquals(1, getKeysetSort(Sort.descending(RECORD_ID)).length);
+  }
+
+  private void assertSeeksEveryRow(Sort... sortBy) {
+    final var keysetSort = getKeysetSort(sortBy);
+    final var sortedRows = new ArrayList<>(rows);
+    sortedRows.sort(getComparator(keysetSort));
+
+    for (var i = 0; i < sortedRows.size(); i++) {
+      final var row = sortedRows.get(i);
+      final List<Object> values =
+          Arrays.stream(keysetSort).map(sort -> row.get(sort.getField())).toList();
+      final var filter = toDocument(getSeekFilter(keysetSort, values));
+
+      final var rowsAfter = sortedRows.stream().filter(other -> matches(filter, other)).toList();
+      assertEquals(
+          "Rows after " + row + " with " + filter,
+          sortedRows.subList(i + 1, sortedRows.size()),
+          rowsAfter);
+    }
+  }
+
+  private static Document toDocument(Filter filter) {
+    return datastore.find(Session.class).filter(filter).toDocument();
+  }
+
+  /** Rows with every combination of null and repeated sort values, in no particular order. */
+  private static List<Map<String, Object>> createRows() {
+    final var rows = new ArrayList<Map<String, Object>>();
+    for (var userId : Arrays.asList(null, "a", "b")) {
+      for (var refreshExpiryTime : Arrays.asList(null, 1L, 2L)) {
+        for (var copy = 0; copy < 2; copy++) {
+          final var row = new HashMap<String, Object>();
+          row.put(Session.USER_ID, userId);
+          row.put(Session.REFRESH_EXPIRY_TIME, refreshExpiryTime);
+          rows.add(row);
+        }
+      }
+    }
+
+    final var recordIds = new ArrayList<String>();
+    for (var i = 0; i < rows.size(); i++) {
+      recordIds.add(String.format("r%02d", i));
+    }
+    Collections.shuffle(recordIds, new Random(1));
+    for (var i = 0; i < rows.size(); i++) {
+      rows.get(i).put(RECORD_ID, recordIds.get(i));
+    }
+    return rows;
+  }
+
+  /** Orders rows like MongoDB, with nulls before any value in ascending order. */
+  private static Comparator<Map<String, Object>> getComparator(Sort[] sortBy) {
+    Comparator<Map<String, Object>> comparator = (first, second) -> 0;
+    for (var sort : sortBy) {
+      final Comparator<Object> values = Comparator.nullsFirst(PaginationHelperTest::compare);
+      comparator =
+          comparator.thenComparing(
+              row -> row.get(sort.getField()), sort.getOrder() > 0 ? values : values.reversed());
+    }
+    return comparator;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static boolean matches(Document filter, Map<String, Object> row) {
+    for (var entry : filter.entrySet()) {
+      final var clauses = entry.getValue();
+      final boolean matched =
+          switch (entry.getKey()) {
+            case "$or" -> ((List<Document>) clauses).stream().anyMatch(f -> matches(f, row));
+            case "$and" -> ((List<Document>) clauses).stream().allMatch(f -> matches(f, row));
+            default -> matches(clauses, row.get(entry.getKey()));
+          };
+      if (!matched) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Matches a value like MongoDB does for values of one type, where null stands for missing. */
+  private static boolean matches(Object condition, Object value) {
+    if (!(condition instanceof Document operators)) {
+      return Objects.equals(condition, value);
+    }
+
+    for (var operator : operators.entrySet()) {
+      final var operand = operator.getValue();
+      final boolean matched =
+          switch (operator.getKey()) {
+            case "$eq" -> Objects.equals(operand, value);
+            case "$ne" -> !Objects.equals(operand, value);
+            case "$gt" -> value != null && operand != null && compare(value, operand) > 0;
+            case "$lt" -> value != null && operand != null && compare(value, operand) < 0;
+            default -> throw new IllegalArgumentException("Unexpected " + operator.getKey());
+          };
+      if (!matched) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object first, Object second) {
+    return ((Comparable<Object>) first).compareTo(second);
+  }
+}
@@ -0,0 +1,122 @@
+package dot.cpp.core.invalidation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.typesafe.config.ConfigFactory;
+import dot.cpp.core.cache.EntityCache;
+import dot.cpp.core.metrics.MetricsRegistry;
+import dot.cpp.core.models.invalidation.repository.CacheInvalidationRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.inject.ApplicationLifecycle;
+
+/** Two buses on the loopback transport standing in for two nodes. */
+public class InvalidationBusTest {
+
+  private static final String COLLECTION = "User";
+
+  private final List<Callable<? extends CompletionStage<?>>> stopHooks = new ArrayList<>();
+
+  private InvalidationBus firstBus;
+  private InvalidationBus secondBus;
+  private EntityCache<String> firstCache;
+  private EntityCache<String> secondCache;
+
+  @Before
+  public void setUp() {
+    firstBus = createBus();
+    secondBus = createBus();
+    firstCache = createCache(firstBus);
+    secondCache = createCache(secondBus);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (var stopHook : stopHooks) {
+      stopHook.call();
+    }
+  }
+
+  @Test
+  public void writeOnOneNodeEvictsTheOther() {
+    fill(firstCache, "1");
+    fill(secondCache, "1");
+    fill(secondCache, "2");
+
+    firstBus.publish(COLLECTION, "1");
+
+    assertNotNull(firstCache.get("1"));
+    assertNull(secondCache.get("1"));
+    assertEquals("2", secondCache.get("2"));
+  }
+
+  @Test
+  public void bulkWriteOnOneNodeEvictsEverythingOnTheOther() {
+    fill(firstCache, "1");
+    fill(secondCache, "1");
+    fill(secondCache, "2");
+
+    firstBus.publish(COLLECTION, null);
+
+    assertNotNull(firstCache.get("1"));
+    assertEquals(0L, secondCache.size());
+  }
+
+  @Test
+  public void otherCollectionsAreNotEvicted() {
+    fill(secondCache, "1");
+
+    firstBus.publish("Session", "1");
+
+    assertEquals("1", secondCache.get("1"));
+  }
+
+  private static void fill(EntityCache<String> cache, String key) {
+    cache.put(key, key, cache.getGeneration());
+  }
+
+  private static EntityCache<String> createCache(InvalidationBus bus) {
+    final var cache =
+        new EntityCache<String>(
+            ConfigFactory.parseMap(Map.of("max.size", 100, "ttl", "1m", "policy", "lru")));
+    bus.subscribe(
+        COLLECTION,
+        recordId -> {
+          if (recordId == null) {
+            cache.invalidateAll();
+          } else {
+            cache.invalidate(recordId);
+          }
+        });
+    return cache;
+  }
+
+  private InvalidationBus createBus() {
+    final var lifecycle = mock(ApplicationLifecycle.class);
+    doAnswer(invocation -> stopHooks.add(invocation.getArgument(0)))
+        .when(lifecycle)
+        .addStopHook(any(Callable.class));
+
+    final var config =
+        ConfigFactory.parseMap(
+            Map.of("cache.invalidation.transport", "loopback", "metrics.jmx.enabled", false));
+    return new InvalidationBus(
+        config,
+        mock(CacheInvalidationRepository.class),
+        mock(RepositoryService.class),
+        new MetricsRegistry(config, lifecycle),
+        lifecycle);
+  }
+}
@@ -0,0 +1,113 @@
+package dot.cpp.core.models.session.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import dot.cpp.core.models.session.entity.Session;
+import dot.cpp.core.services.LoginService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import play.Application;
+import play.inject.guice.GuiceApplicationBuilder;
+import play.test.WithApplication;
+
+/**
+ * Integration test of the session rotation against the configured MongoDB. Skipped unless the
+ * {@code MONGODB_INTEGRATION_TESTS} environment variable is set to {@code true}.
+ */
+public class SessionRepositoryTest extends WithApplication {
+
+  private static final int THREADS = 32;
+  private static final String CLIENT_IP = "127.0.0.1";
+
+  private SessionRepository sessionRepository;
+  private Session session;
+
+  @BeforeClass
+  public static void requireDatabase() {
+    assumeTrue(Boolean.parseBoolean(System.getenv("MONGODB_INTEGRATION_TESTS")));
+  }
+
+  @Override
+  protected Application provideApplication() {
+    return new GuiceApplicationBuilder()
+        .configure("password.pepper", "test-pepper")
+        .configure("list.page.size", 20)
+        .build();
+  }
+
+  @Before
+  public void setUp() {
+    sessionRepository = app.injector().instanceOf(SessionRepository.class);
+
+    session = new Session();
+    session.setUserId(UUID.randomUUID().toString());
+    session.setClientIp(CLIENT_IP);
+    session.setRefreshToken(UUID.randomUUID().toString());
+    session.setRefreshExpiryTime(System.currentTimeMillis() + LoginService.REFRESH_TIME);
+    sessionRepository.save(session);
+  }
+
+  @After
+  public void tearDown() {
+    sessionRepository.delete(session);
+  }
+
+  @Test
+  public void concurrentRotationsOfTheSameTokenSucceedOnce() throws Exception {
+    final var refreshToken = session.getRefreshToken();
+    final var rotatedSessions =
+        runConcurrently(
+            () -> {
+              final var now = System.currentTimeMillis();
+              return sessionRepository.rotateRefreshToken(
+                  refreshToken,
+                  CLIENT_IP,
+                  UUID.randomUUID().toString(),
+                  now,
+                  now + LoginService.REFRESH_TIME);
+            });
+
+    final var winners = rotatedSessions.stream().filter(rotated -> rotated != null).toList();
+    assertEquals(1, winners.size());
+
+    final var storedSession = sessionRepository.findById(session.getRecordId());
+    assertEquals(winners.get(0).getRefreshToken(), storedSession.getRefreshToken());
+    assertEquals(refreshToken, storedSession.getOldRefreshToken());
+  }
+
+  private <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+    final var executor = Executors.newFixedThreadPool(THREADS);
+    final var start = new CountDownLatch(1);
+
+    try {
+      final var futures = new ArrayList<Future<T>>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return task.call();
+                }));
+      }
+      start.countDown();
+
+      final var results = new ArrayList<T>();
+      for (var future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
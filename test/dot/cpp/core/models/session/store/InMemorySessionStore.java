@@ -0,0 +1,114 @@
+package dot.cpp.core.models.session.store;
+
+import dot.cpp.core.models.session.entity.Session;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session store kept entirely in memory, so that tests and benchmarks exercise the login service
+ * without a database. Rotations are compare-and-set on the session object, like the database
+ * update.
+ */
+public class InMemorySessionStore implements SessionStore {
+
+  private final Map<String, Session> byRefreshToken = new ConcurrentHashMap<>();
+  private final Map<String, Session> byOldRefreshToken = new ConcurrentHashMap<>();
+
+  @Override
+  public Session save(Session session) {
+    byRefreshToken.put(session.getRefreshToken(), session);
+    return session;
+  }
+
+  @Override
+  public Session findByRefreshToken(String refreshToken) {
+    return byRefreshToken.get(refreshToken);
+  }
+
+  @Override
+  public Session findByOldRefreshToken(String refreshToken) {
+    return byOldRefreshToken.get(refreshToken);
+  }
+
+  @Override
+  public List<Session> findByUserId(String userId) {
+    return byRefreshToken.values().stream()
+        .filter(session -> userId.equals(session.getUserId()))
+        .toList();
+  }
+
+  @Override
+  public Session rotateRefreshToken(
+      String refreshToken,
+      String clientIp,
+      String newRefreshToken,
+      long now,
+      long newRefreshExpiryTime) {
+    final var session = byRefreshToken.get(refreshToken);
+    if (session == null) {
+      return null;
+    }
+
+    synchronized (session) {
+      if (!refreshToken.equals(session.getRefreshToken())
+          || !clientIp.equals(session.getClientIp())
+          || session.getRefreshExpiryTime() < now) {
+        return null;
+      }
+
+      if (session.getOldRefreshToken() != null) {
+        byOldRefreshToken.remove(session.getOldRefreshToken(), session);
+      }
+      byRefreshToken.remove(refreshToken, session);
+      session.setOldRefreshToken(refreshToken);
+      session.setRefreshToken(newRefreshToken);
+      session.setRefreshExpiryTime(newRefreshExpiryTime);
+      byOldRefreshToken.put(refreshToken, session);
+      byRefreshToken.put(newRefreshToken, session);
+      return session;
+    }
+  }
+
+  @Override
+  public void delete(Session session) {
+    byRefreshToken.remove(session.getRefreshToken(), session);
+    if (session.getOldRefreshToken() != null) {
+      byOldRefreshToken.remove(session.getOldRefreshToken(), session);
+    }
+  }
+
+  @Override
+  public long deleteByUserId(String userId) {
+    final var sessions = findByUserId(userId);
+    sessions.forEach(this::delete);
+    return sessions.size();
+  }
+
+  @Override
+  public long deleteExpired(long expiredBefore, int batchSize) {
+    final var sessions =
+        byRefreshToken.values().stream()
+            .filter(session -> session.getRefreshExpiryTime() < expiredBefore)
+            .toList();
+    sessions.forEach(this::delete);
+    return sessions.size();
+  }
+
+  @Override
+  public long trimUserSessions(String userId, int maxSessions) {
+    final var sessions = findByUserId(userId);
+    if (sessions.size() <= maxSessions) {
+      return 0L;
+    }
+
+    final var excess =
+        sessions.stream()
+            .sorted(Comparator.comparing(Session::getRefreshExpiryTime))
+            .limit(sessions.size() - (long) maxSessions)
+            .toList();
+    excess.forEach(this::delete);
+    return excess.size();
+  }
+}
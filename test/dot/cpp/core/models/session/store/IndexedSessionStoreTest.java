@@ -0,0 +1,126 @@
+package dot.cpp.core.models.session.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.typesafe.config.ConfigFactory;
+import dot.cpp.core.metrics.AuthMetrics;
+import dot.cpp.core.metrics.Histogram;
+import dot.cpp.core.models.session.entity.Session;
+import dot.cpp.core.models.session.repository.SessionRepository;
+import dot.cpp.core.services.LoginService;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import play.inject.ApplicationLifecycle;
+
+public class IndexedSessionStoreTest {
+
+  private static final String CLIENT_IP = "127.0.0.1";
+
+  private SessionRepository sessionRepository;
+  private IndexedSessionStore sessionStore;
+
+  @Before
+  public void setUp() {
+    sessionRepository = mock(SessionRepository.class);
+    when(sessionRepository.save(any(Session.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    final var metrics = mock(AuthMetrics.class);
+    when(metrics.getSessionLatency(anyString())).thenReturn(new Histogram());
+
+    final var config =
+        ConfigFactory.parseMap(
+            Map.of(
+                "session.store.durability", "write-behind",
+                "session.store.max.sessions", 1,
+                "session.store.flush.interval", "1h",
+                "session.store.flush.batch.size", 10));
+
+    sessionStore =
+        new IndexedSessionStore(
+            sessionRepository, config, mock(ApplicationLifecycle.class), metrics);
+  }
+
+  @Test
+  public void rotatesInMemoryBelowCapacity() {
+    final var session = sessionStore.save(createSession());
+
+    final var rotatedSession = rotate(session.getRefreshToken());
+
+    assertNotNull(rotatedSession);
+    assertEquals(session.getRefreshToken(), rotatedSession.getOldRefreshToken());
+    verify(sessionRepository, never())
+        .rotateRefreshToken(anyString(), anyString(), anyString(), anyLong(), anyLong());
+  }
+
+  @Test
+  public void rotatesInDatabaseAtCapacity() {
+    sessionStore.save(createSession());
+    final var session = sessionStore.save(createSession());
+    assertEquals(1, sessionStore.size());
+
+    when(sessionRepository.findByField(Session.REFRESH_TOKEN, session.getRefreshToken()))
+        .thenReturn(session);
+    final var storedRotation = createSession();
+    when(sessionRepository.rotateRefreshToken(
+            eq(session.getRefreshToken()), eq(CLIENT_IP), anyString(), anyLong(), anyLong()))
+        .thenReturn(storedRotation);
+
+    assertEquals(storedRotation, rotate(session.getRefreshToken()));
+    assertEquals(1, sessionStore.size());
+  }
+
+  @Test
+  public void rejectsTokenRotatedInMemoryBeforeFlush() {
+    final var session = createSession();
+    final var storedSession = createSession();
+    storedSession.setRecordId(session.getRecordId());
+    storedSession.setUserId(session.getUserId());
+    storedSession.setRefreshToken(session.getRefreshToken());
+    sessionStore.save(session);
+
+    final var oldRefreshToken = session.getRefreshToken();
+    assertNotNull(rotate(oldRefreshToken));
+    assertEquals(1, sessionStore.getPendingWrites());
+
+    // the rotation is not flushed yet, so the database still finds the old token
+    when(sessionRepository.findByField(Session.REFRESH_TOKEN, oldRefreshToken))
+        .thenReturn(storedSession);
+
+    assertNull(rotate(oldRefreshToken));
+    verify(sessionRepository, never())
+        .rotateRefreshToken(anyString(), anyString(), anyString(), anyLong(), anyLong());
+  }
+
+  private Session rotate(String refreshToken) {
+    final var now = System.currentTimeMillis();
+    return sessionStore.rotateRefreshToken(
+        refreshToken,
+        CLIENT_IP,
+        UUID.randomUUID().toString(),
+        now,
+        now + LoginService.REFRESH_TIME);
+  }
+
+  private static Session createSession() {
+    final var session = new Session();
+    session.setRecordId(UUID.randomUUID().toString());
+    session.setUserId(UUID.randomUUID().toString());
+    session.setClientIp(CLIENT_IP);
+    session.setRefreshToken(UUID.randomUUID().toString());
+    session.setRefreshExpiryTime(System.currentTimeMillis() + LoginService.REFRESH_TIME);
+    return session;
+  }
+}
@@ -0,0 +1,125 @@
+package dot.cpp.core.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static play.inject.Bindings.bind;
+
+import dot.cpp.core.enums.UserRole;
+import dot.cpp.core.models.AuthTokens;
+import dot.cpp.core.models.revocation.repository.TokenRevocationRepository;
+import dot.cpp.core.models.session.entity.Session;
+import dot.cpp.core.models.session.store.InMemorySessionStore;
+import dot.cpp.core.models.session.store.SessionStore;
+import dot.cpp.core.models.user.entity.User;
+import dot.cpp.core.models.user.repository.UserRepository;
+import dot.cpp.repository.services.RepositoryService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import play.Application;
+import play.inject.guice.GuiceApplicationBuilder;
+import play.test.WithApplication;
+
+public class LoginServiceTest extends WithApplication {
+
+  private static final int THREADS = 32;
+  private static final String CLIENT_IP = "127.0.0.1";
+
+  private final SessionStore sessionStore = new InMemorySessionStore();
+  private final User user = createUser();
+
+  private LoginService loginService;
+  private Session session;
+
+  @Override
+  protected Application provideApplication() {
+    final var repositoryService = mock(RepositoryService.class);
+    when(repositoryService.isDatabaseInitialized()).thenReturn(true);
+
+    final var userRepository = mock(UserRepository.class);
+    when(userRepository.findById(anyString()))
+        .thenAnswer(
+            invocation -> user.getRecordId().equals(invocation.getArgument(0)) ? user : null);
+
+    return new GuiceApplicationBuilder()
+        .configure("password.pepper", "test-pepper")
+        .configure("list.page.size", 20)
+        .configure("indexes.bootstrap.enabled", false)
+        .overrides(
+            bind(RepositoryService.class).toInstance(repositoryService),
+            bind(UserRepository.class).toInstance(userRepository),
+            bind(TokenRevocationRepository.class).toInstance(mock(TokenRevocationRepository.class)),
+            bind(SessionStore.class).toInstance(sessionStore))
+        .build();
+  }
+
+  @Before
+  public void setUp() {
+    loginService = app.injector().instanceOf(LoginService.class);
+
+    session = new Session();
+    session.setUserId(user.getRecordId());
+    session.setClientIp(CLIENT_IP);
+    session.setRefreshToken(UUID.randomUUID().toString());
+    session.setRefreshExpiryTime(System.currentTimeMillis() + LoginService.REFRESH_TIME);
+    sessionStore.save(session);
+  }
+
+  @Test
+  public void concurrentRefreshesReceiveTheSameRefreshToken() throws Exception {
+    final var refreshToken = session.getRefreshToken();
+    final List<AuthTokens> tokens =
+        runConcurrently(() -> loginService.refreshTokens(refreshToken, CLIENT_IP));
+
+    final var newRefreshToken = tokens.get(0).refreshToken;
+    assertNotEquals(refreshToken, newRefreshToken);
+    tokens.forEach(authTokens -> assertEquals(newRefreshToken, authTokens.refreshToken));
+  }
+
+  private static User createUser() {
+    final var user = new User();
+    user.setRecordId(UUID.randomUUID().toString());
+    user.setUserName("rotation");
+    user.setFullName("Rotation Test");
+    user.setIdNumber("0");
+    user.setEmail("rotation@test.ro");
+    user.setRole(UserRole.USER);
+    user.setActive(true);
+    return user;
+  }
+
+  private <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+    final var executor = Executors.newFixedThreadPool(THREADS);
+    final var start = new CountDownLatch(1);
+
+    try {
+      final var futures = new ArrayList<Future<T>>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return task.call();
+                }));
+      }
+      start.countDown();
+
+      final var results = new ArrayList<T>();
+      for (var future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package dot.cpp.core.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import dot.cpp.core.enums.ErrorCodes;
+import dot.cpp.core.enums.UserRole;
+import dot.cpp.core.exceptions.BaseException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+public class PageTokenTest {
+
+  private static final String SORT = "modifiedAt:-1,_id:-1";
+
+  @Test
+  public void keepsValueTypesThroughEncoding() throws BaseException {
+    final List<Object> values =
+        Arrays.asList(42L, 7, new Date(1_700_000_000_123L), new ObjectId(), "record", null);
+
+    final var token = PageToken.decode(new PageToken(values, true, SORT).encode(), SORT);
+
+    assertEquals(values, token.values);
+    assertEquals(Long.class, token.values.get(0).getClass());
+    assertEquals(Integer.class, token.values.get(1).getClass());
+    assertTrue(token.backward);
+    assertEquals(SORT, token.sort);
+  }
+
+  @Test
+  public void storesValuesAsMorphiaDoes() throws BaseException {
+    final var instant = Instant.ofEpochMilli(1_700_000_000_123L);
+    final List<Object> values =
+        List.of(UserRole.USER, instant, LocalDate.of(2024, 1, 2), "record");
+
+    final var token = PageToken.decode(new PageToken(values, false, SORT).encode(), SORT);
+
+    assertEquals(
+        List.of(
+            UserRole.USER.name(),
+            Date.from(instant),
+            Date.from(Instant.parse("2024-01-02T00:00:00Z")),
+            "record"),
+        token.values);
+    assertFalse(token.backward);
+  }
+
+  @Test
+  public void rejectsTokenOfAnotherSort() {
+    final var token = new PageToken(List.of(1L, "record"), false, SORT).encode();
+
+    assertInvalid(token, "modifiedAt:1,_id:1");
+  }
+
+  @Test
+  public void rejectsMalformedToken() {
+    assertInvalid("not a token", SORT);
+    assertInvalid("e30", SORT);
+  }
+
+  private static void assertInvalid(String token, String sort) {
+    final var exception = assertThrows(BaseException.class, () -> PageToken.decode(token, sort));
+    assertEquals(
+        ErrorCodes.INVALID_PAGE_TOKEN.getCode().getCode(),
+        exception.getErrorCode().getCode());
+  }
+}
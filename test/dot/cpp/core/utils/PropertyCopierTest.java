@@ -0,0 +1,137 @@
+package dot.cpp.core.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import dot.cpp.core.utils.beans.NamedBean;
+import org.junit.Test;
+
+public class PropertyCopierTest {
+
+  private final PropertyCopier propertyCopier = PropertyCopier.getDefault();
+
+  @Test
+  public void copiesMatchingProperties() {
+    final var source = new Source();
+    source.setName("name");
+    source.setCount(3);
+
+    final var target = new Target();
+    propertyCopier.copy(source, target);
+
+    assertEquals("name", target.getName());
+    assertEquals(3, target.getCount());
+  }
+
+  @Test
+  public void keepsPrimitiveTargetWhenSourceIsNull() {
+    final var target = new Target();
+    target.setCount(5);
+
+    propertyCopier.copy(new Source(), target);
+
+    assertEquals(5, target.getCount());
+  }
+
+  @Test
+  public void skipsIgnoredProperties() {
+    final var source = new Source();
+    source.setName("name");
+    source.setCount(3);
+
+    final var target = new Target();
+    propertyCopier.copy(source, target, "name");
+
+    assertNull(target.getName());
+    assertEquals(3, target.getCount());
+  }
+
+  @Test
+  public void convertsPropertiesOfOtherTypes() {
+    final var source = new Source();
+    source.setCode(42);
+
+    final var target = new Target();
+    propertyCopier.copy(source, target);
+    assertNull(target.getCode());
+
+    propertyCopier.withConverter(Integer.class, String.class, String::valueOf).copy(source, target);
+    assertEquals("42", target.getCode());
+  }
+
+  @Test
+  public void copiesPropertiesInheritedFromPackagePrivateClass() {
+    final var source = new NamedBean();
+    source.setName("name");
+
+    final var target = new Target();
+    propertyCopier.copy(source, target);
+    assertEquals("name", target.getName());
+
+    final var copy = new NamedBean();
+    propertyCopier.copy(target, copy);
+    assertEquals("name", copy.getName());
+  }
+
+  public static class Source {
+
+    private String name;
+    private Integer count;
+    private Integer code;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public Integer getCount() {
+      return count;
+    }
+
+    public void setCount(Integer count) {
+      this.count = count;
+    }
+
+    public Integer getCode() {
+      return code;
+    }
+
+    public void setCode(Integer code) {
+      this.code = code;
+    }
+  }
+
+  public static class Target {
+
+    private String name;
+    private int count;
+    private String code;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public String getCode() {
+      return code;
+    }
+
+    public void setCode(String code) {
+      this.code = code;
+    }
+  }
+}
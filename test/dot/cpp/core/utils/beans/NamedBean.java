@@ -0,0 +1,20 @@
+package dot.cpp.core.utils.beans;
+
+/**
+ * A bean whose name accessors are inherited from a package-private base class, so they are not
+ * accessible through their declaring class from other packages.
+ */
+public class NamedBean extends NamedBase {}
+
+class NamedBase {
+
+  private String name;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+}